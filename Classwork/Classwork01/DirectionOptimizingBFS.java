@@ -0,0 +1,306 @@
+//package pathfinder.informed;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Level-synchronous breadth-first search over a MazeProblem, run backward out of
+ * the goal until it reaches the initial state. The maze is packed into a bitmap
+ * of walls, and every cell visited has its distance from the goal, mod 3, kept
+ * in two more bitmaps; since neighbouring cells differ in distance by exactly 1,
+ * that is enough to tell which neighbours lie one step closer to the goal.<br>
+ * Each level is expanded in one of two directions, as in Beamer's
+ * direction-optimizing BFS: top-down, out of a list of the frontier cells, while
+ * the frontier is small, and bottom-up, by having every unvisited cell look for a
+ * neighbour in a bitmap of the frontier, once the frontier holds a sizable part
+ * of what is left to visit. Either way, a level large enough is split across the
+ * common ForkJoinPool: top-down by ranges of the frontier list, claiming cells
+ * with atomic ORs on the bitmaps, and bottom-up by ranges of bitmap words, which
+ * each worker then owns outright.<br>
+ * The path is then walked forward from the initial state, taking at every step
+ * the first action, in the order that getTransitions lists them, that leads one
+ * level closer to the goal, which gives the same path as a breadth-first tree
+ * search that expands children in that order.
+ */
+class DirectionOptimizingBFS {
+
+    // Beamer's switching thresholds, with every cell taken to have 4 edges: go
+    // bottom-up once the frontier exceeds 1 / ALPHA of the unvisited cells, and
+    // back top-down once it is shrinking and under 1 / BETA of all the cells
+    private static final int ALPHA = 14, BETA = 24;
+
+    // Top-down frontiers of fewer cells, and bottom-up ranges of fewer bitmap
+    // words, than these are expanded by a single worker
+    private static final int CELL_GRAIN = 1 << 12, WORD_GRAIN = 1 << 10;
+
+    // Atomic access to the elements of the bitmaps, for the top-down expansion
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final MazeProblem problem;
+    private final int rows, cols, cells, words;
+
+    // Bitmaps over the cells, 64 to a long: walls; cells visited, which includes
+    // walls and the padding past the last cell; the low and high bits of each
+    // visited cell's distance from the goal, mod 3; and the frontier of the level
+    // last expanded, with the next one, for the bottom-up expansion
+    private final long[] walls, visited, low, high;
+    private long[] frontier, next;
+
+    /**
+     * Constructs a new DirectionOptimizingBFS, packing the walls of the given maze.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     */
+    DirectionOptimizingBFS (MazeProblem problem) {
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.cells = rows * cols;
+        this.words = (cells + 63) >>> 6;
+        this.walls = new long[words];
+        for (int row = 0, cell = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++, cell++) {
+                if (problem.isWall(col, row)) {
+                    walls[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        this.visited = walls.clone();
+        if ((cells & 63) != 0) {
+            visited[words - 1] |= -1L << cells;
+        }
+        this.low = new long[words];
+        this.high = new long[words];
+    }
+
+    /**
+     * Finds the shortest path from the initial state to the goal.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    ArrayList<String> solve () {
+        if (problem.INITIAL_STATE == null || problem.GOAL_STATE == null) {
+            return null;
+        }
+        int start = problem.INITIAL_STATE.row * cols + problem.INITIAL_STATE.col,
+            goal  = problem.GOAL_STATE.row * cols + problem.GOAL_STATE.col;
+        visited[goal >>> 6] |= 1L << goal;
+        long unvisited = cells - Long.bitCount(walls[0]) - 1;
+        for (int w = 1; w < words; w++) {
+            unvisited -= Long.bitCount(walls[w]);
+        }
+
+        // Between levels, the frontier is either the first size cells of queue or,
+        // when bottomUp, the frontier bitmap
+        int[] queue = {goal};
+        int size = 1, previous = 0, depth = 0;
+        boolean bottomUp = false;
+        while (!isSet(visited, start)) {
+            if (size == 0) {
+                return null;
+            }
+            depth++;
+            if (!bottomUp && (long) size * ALPHA > unvisited) {
+                bottomUp = true;
+                frontier = toBitmap(queue, size);
+                next = new long[words];
+            } else if (bottomUp && (long) size * BETA < cells && size < previous) {
+                bottomUp = false;
+                queue = toList(frontier, size);
+            }
+            previous = size;
+            if (bottomUp) {
+                // A small level is expanded on this thread, without a trip to the pool
+                BottomUp level = new BottomUp(depth, 0, words);
+                size = words <= WORD_GRAIN ? level.compute() : ForkJoinPool.commonPool().invoke(level);
+                long[] swap = frontier;
+                frontier = next;
+                next = swap;
+            } else {
+                TopDown level = new TopDown(queue, depth, 0, size);
+                queue = size <= CELL_GRAIN ? level.compute() : ForkJoinPool.commonPool().invoke(level);
+                size = queue.length;
+            }
+            unvisited -= size;
+        }
+        return getSolution(start, depth);
+    }
+
+    /**
+     * Walks forward from the initial state, one level closer to the goal each step.
+     */
+    private ArrayList<String> getSolution (int start, int depth) {
+        ArrayList<String> solution = new ArrayList<String>(depth);
+        MazeState[] offsets = new MazeState[MazeProblem.ACTIONS.length];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = MazeProblem.getOffset(MazeProblem.ACTIONS[i]);
+        }
+        int col = start % cols, row = start / cols;
+        for (int level = depth - 1; level >= 0; level--) {
+            for (int i = 0; i < offsets.length; i++) {
+                int nCol = col + offsets[i].col, nRow = row + offsets[i].row, cell = nRow * cols + nCol;
+                if (nCol >= 0 && nCol < cols && nRow >= 0 && nRow < rows &&
+                    !isSet(walls, cell) && isSet(visited, cell) && mod3(cell) == level % 3) {
+                    solution.add(MazeProblem.ACTIONS[i]);
+                    col = nCol;
+                    row = nRow;
+                    break;
+                }
+            }
+        }
+        return solution;
+    }
+
+    private static boolean isSet (long[] bitmap, int cell) {
+        return (bitmap[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    private int mod3 (int cell) {
+        return isSet(low, cell) ? 1 : isSet(high, cell) ? 2 : 0;
+    }
+
+    private long[] toBitmap (int[] queue, int size) {
+        long[] bitmap = new long[words];
+        for (int i = 0; i < size; i++) {
+            bitmap[queue[i] >>> 6] |= 1L << queue[i];
+        }
+        return bitmap;
+    }
+
+    private int[] toList (long[] bitmap, int size) {
+        int[] queue = new int[size];
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            for (long bits = bitmap[w]; bits != 0; bits &= bits - 1) {
+                queue[count++] = w << 6 | Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Expands queue[from .. to) top-down, splitting the range in half until it
+     * is small enough for one worker.
+     *
+     * @return The cells newly visited, which are the next frontier
+     */
+    private class TopDown extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] queue;
+        private final int depth, from, to;
+
+        TopDown (int[] queue, int depth, int from, int to) {
+            this.queue = queue;
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute () {
+            if (to - from > CELL_GRAIN) {
+                int mid = (from + to) >>> 1;
+                TopDown right = new TopDown(queue, depth, mid, to);
+                right.fork();
+                int[] found = new TopDown(queue, depth, from, mid).compute(), more = right.join();
+                int[] result = Arrays.copyOf(found, found.length + more.length);
+                System.arraycopy(more, 0, result, found.length, more.length);
+                return result;
+            }
+            int[] found = new int[Math.max(16, 2 * (to - from))];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int cell = queue[i], col = cell % cols;
+                for (int dir = 0; dir < 4; dir++) {
+                    int neighbour = dir == 0 ? (cell >= cols ? cell - cols : -1)
+                             : dir == 1 ? (cell < cells - cols ? cell + cols : -1)
+                             : dir == 2 ? (col > 0 ? cell - 1 : -1)
+                             : (col < cols - 1 ? cell + 1 : -1);
+                    if (neighbour >= 0 && claim(neighbour)) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = neighbour;
+                    }
+                }
+            }
+            return Arrays.copyOf(found, count);
+        }
+
+        /**
+         * Marks the cell visited at this depth, unless it already was.
+         *
+         * @return Boolean of whether or not this worker was the one to visit it
+         */
+        private boolean claim (int cell) {
+            int w = cell >>> 6;
+            long bit = 1L << cell;
+            if ((visited[w] & bit) != 0 || ((long) WORDS.getAndBitwiseOr(visited, w, bit) & bit) != 0) {
+                return false;
+            }
+            if (depth % 3 != 0) {
+                WORDS.getAndBitwiseOr(depth % 3 == 1 ? low : high, w, bit);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Expands the bitmap words [from .. to) bottom-up, splitting the range in half
+     * until it is small enough for one worker, which then is the only one to write
+     * to those words of every bitmap.
+     *
+     * @return The number of cells newly visited
+     */
+    private class BottomUp extends RecursiveTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int depth, from, to;
+
+        BottomUp (int depth, int from, int to) {
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute () {
+            if (to - from > WORD_GRAIN) {
+                int mid = (from + to) >>> 1;
+                BottomUp right = new BottomUp(depth, mid, to);
+                right.fork();
+                return new BottomUp(depth, from, mid).compute() + right.join();
+            }
+            int count = 0;
+            for (int w = from; w < to; w++) {
+                long found = 0;
+                for (long bits = ~visited[w]; bits != 0; bits &= bits - 1) {
+                    int cell = w << 6 | Long.numberOfTrailingZeros(bits), col = cell % cols;
+                    if (cell >= cols && isSet(frontier, cell - cols) ||
+                        cell < cells - cols && isSet(frontier, cell + cols) ||
+                        col > 0 && isSet(frontier, cell - 1) ||
+                        col < cols - 1 && isSet(frontier, cell + 1)) {
+                        found |= bits & -bits;
+                    }
+                }
+                visited[w] |= found;
+                next[w] = found;
+                if (depth % 3 == 1) {
+                    low[w] |= found;
+                } else if (depth % 3 == 2) {
+                    high[w] |= found;
+                }
+                count += Long.bitCount(found);
+            }
+            return count;
+        }
+    }
+}
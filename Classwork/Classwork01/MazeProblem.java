@@ -18,6 +18,10 @@ public class MazeProblem {
     public final MazeState INITIAL_STATE, GOAL_STATE;
     private static final Map<String, MazeState> TRANS_MAP = createTransitions();
     
+    // Actions in the order that getTransitions lists them, used by the index-based
+    // search to break ties between shortest paths the same way as the tree search
+    static final String[] ACTIONS = TRANS_MAP.keySet().toArray(new String[0]);
+    
     /**
      * @return Creates the transition map that maps String actions to 
      * MazeState offsets, of the format:
@@ -96,6 +100,39 @@ public class MazeProblem {
         return state.equals(GOAL_STATE);
     }
     
+    /**
+     * @return The number of rows in the maze
+     */
+    int getRows () {
+        return rows;
+    }
+    
+    /**
+     * @return The number of columns in the maze
+     */
+    int getCols () {
+        return cols;
+    }
+    
+    /**
+     * @param col Column of the position to test
+     * @param row Row of the position to test
+     * @return Boolean of whether or not there is a wall at (col, row), which
+     * must lie within the maze
+     */
+    boolean isWall (int col, int row) {
+        return maze[row].charAt(col) == 'X';
+    }
+    
+    /**
+     * @param action One of the actions "U", "D", "L", or "R"
+     * @return A new MazeState holding the (col, row) offset that the action moves by
+     */
+    static MazeState getOffset (String action) {
+        MazeState offset = TRANS_MAP.get(action);
+        return new MazeState(offset.col, offset.row);
+    }
+    
     /**
      * Returns a map of the states that can be reached from the given input
      * state using any of the available actions.
@@ -3,6 +3,7 @@
 import static org.junit.Assert.*;
 import org.junit.Test;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
@@ -85,5 +86,51 @@ public class PathfinderTests {
         assertEquals(1,  result[0]); // Test that result is a solution
         assertEquals(4, result[1]); // Ensure that the solution is optimal
     }
-
+    
+    @Test
+    public void testPathfinder_t4() {
+        String[] maze = {
+            "XXXXXXX",
+            "X.....X",
+            "XIX.X.X",
+            "XX.X..X",
+            "XG....X",
+            "XXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob);
+        
+        // Of the shortest paths, the one a tree search would have found first,
+        // trying actions in the order getTransitions lists them
+        assertEquals(Arrays.asList("U", "R", "R", "R", "R", "D", "D", "D", "L", "L", "L", "L"), solution);
+        int[] result = prob.testSolution(solution);
+        assertEquals(1,  result[0]);
+        assertEquals(12, result[1]);
+        
+        // A goal walled off from the initial state has no solution
+        maze[3] = "XXXX..X";
+        maze[4] = "XGX...X";
+        assertNull(Pathfinder.solve(new MazeProblem(maze)));
+    }
+    
+    @Test
+    public void testPathfinder_t5() {
+        // A wide open maze, whose frontier grows large enough to be expanded
+        // bottom-up and split across workers
+        String[] maze = new String[300];
+        for (int row = 0; row < maze.length; row++) {
+            StringBuilder line = new StringBuilder();
+            for (int col = 0; col < 300; col++) {
+                line.append(row == 0 && col == 0 ? 'I' : row == 299 && col == 299 ? 'G' :
+                            col == 150 && row > 0 && row < 299 ? 'X' : '.');
+            }
+            maze[row] = line.toString();
+        }
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solve(prob);
+        
+        int[] result = prob.testSolution(solution);
+        assertEquals(1,   result[0]);
+        assertEquals(598, result[1]);
+    }
 }
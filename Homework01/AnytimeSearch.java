@@ -0,0 +1,297 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Anytime Repairing A* (ARA*) over the (cell, keyObtained) states of a MazeProblem,
+ * encoded as in GridSearch. A first path is found quickly by weighted A*, ordering
+ * the frontier by g + w * h with a heavily inflated w, and then w is lowered step by
+ * step until the deadline passes or w reaches 1. Each step reuses the g-costs of the
+ * steps before it: only states whose g has dropped since they were last expanded are
+ * searched again, the closed ones among them having been set aside on an INCONS list
+ * rather than being reopened mid-step.<br>
+ * The heuristic is that of manhattanH, made consistent across the pickup of the key:
+ * the Manhattan distance to the key plus the least from the key to a goal, or after
+ * the key, to the nearest goal. Every state whose g has dropped since it was last
+ * expanded is on the frontier or INCONS, so the least g + h among them is a lower
+ * bound on the optimal cost at any moment, even part way through a step, and the
+ * cost found over that bound is the proven sub-optimality.
+ */
+class AnytimeSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    // The weights on the heuristic, in tenths, tried in turn; keeping them whole
+    // numbers keeps the frontier's keys exact
+    private static final int[] WEIGHTS = {50, 30, 20, 15, 12, 11, 10};
+
+    // The deadline is checked once in this many expansions
+    private static final int CHECK_EVERY = 64;
+
+    private final MazeProblem problem;
+    private final int cols, key, keyToGoal;
+    private final int[] neighbours = new int[4];
+
+    // The Manhattan distance to the nearest goal, taken over every goal rather
+    // than read from a transform over the whole maze; it is found once per state
+    // reached, and kept in hOf
+    private final NearestGoal nearestGoal;
+
+    // State table, as in MultiKeySearch: each state reached is given a dense id
+    // by an open-addressing table, so that a search that reaches a sliver of the
+    // maze, as the first few steps do, never touches arrays over all of it
+    private int[] slots, slotIds, stateOf, gCost, hOf, parent;
+    private int size;
+
+    // Frontier entries are (10 * g + weight * h) << 32 | id; an entry is stale
+    // if its state has since left the frontier or been given a lower key
+    private LongHeap open;
+    private final BitSet onOpen = new BitSet(), closed = new BitSet(), inIncons = new BitSet();
+    private int[] incons = new int[16];
+    private int inconsSize, weight;
+
+    // The id of the least-cost goal state reached so far, or -1, and its g
+    private int goal = -1, goalCost = INFINITY;
+
+    /**
+     * Constructs a new AnytimeSearch.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     */
+    AnytimeSearch (MazeProblem problem) {
+        this.problem = problem;
+        this.cols = problem.getCols();
+        this.key = problem.KEY_STATE == null ? -1 : problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        this.nearestGoal = new NearestGoal(problem, false);
+        this.keyToGoal = key < 0 || problem.GOAL_STATE.isEmpty() ? 0 : nearestGoal.distance(key);
+    }
+
+    /**
+     * Finds a path from the initial state through the key to any goal, improving
+     * on it until the deadline. The first path is searched for past the deadline
+     * if need be, so that a problem with a solution always gets one.
+     *
+     * @param deadline The System.nanoTime() after which to stop improving the path
+     * @return A SearchResult holding the best path found, its cost, and its proven
+     * sub-optimality, or null if there is none
+     */
+    SearchResult solve (long deadline) {
+        if (problem.INITIAL_STATE == null || key < 0 || problem.GOAL_STATE.isEmpty()) {
+            return null;
+        }
+        resetTable(1 << 10);
+        int startCell = problem.INITIAL_STATE.row * cols + problem.INITIAL_STATE.col;
+        int start = idOf(startCell * 2 + (startCell == key ? 1 : 0));
+        gCost[start] = 0;
+        parent[start] = -1;
+        weight = WEIGHTS[0];
+        open = new LongHeap();
+        onOpen.set(start);
+        push(start);
+
+        for (int step = 0; ; step++) {
+            boolean finished = improvePath(deadline);
+            if (goal < 0) {
+                return null;
+            }
+            if (!finished || step == WEIGHTS.length - 1 || System.nanoTime() >= deadline) {
+                return getResult();
+            }
+            // Ready the next step: set aside states rejoin the frontier, and every
+            // frontier key is recomputed with the lower weight
+            weight = WEIGHTS[step + 1];
+            open = new LongHeap();
+            for (int i = 0; i < inconsSize; i++) {
+                onOpen.set(incons[i]);
+            }
+            for (int id = onOpen.nextSetBit(0); id >= 0; id = onOpen.nextSetBit(id + 1)) {
+                push(id);
+            }
+            inIncons.clear();
+            inconsSize = 0;
+            closed.clear();
+        }
+    }
+
+    /**
+     * Expands states in order of 10 * g + weight * h until the best goal's cost is
+     * no greater than the least key on the frontier, or until the deadline has
+     * passed once a goal has been reached.
+     *
+     * @return Boolean of whether or not the step ran to completion
+     */
+    private boolean improvePath (long deadline) {
+        long expanded = 0;
+        while (!open.isEmpty()) {
+            long entry = open.pop();
+            int id = (int) entry;
+            if (!onOpen.get(id) || entry >>> 32 != keyOf(id)) {
+                continue;
+            }
+            if (entry >>> 32 >= 10L * goalCost) {
+                open.push(entry);
+                return true;
+            }
+            if (goal >= 0 && ++expanded % CHECK_EVERY == 0 && System.nanoTime() >= deadline) {
+                open.push(entry);
+                return false;
+            }
+            onOpen.clear(id);
+            closed.set(id);
+            int cell = stateOf[id] >>> 1, hasKey = stateOf[id] & 1;
+
+            problem.getNeighbours(cell, neighbours);
+            for (int dir = 0; dir < 4; dir++) {
+                int nextCell = neighbours[dir];
+                if (nextCell < 0) {
+                    continue;
+                }
+                int next = idOf(nextCell * 2 + (nextCell == key ? 1 : hasKey));
+                int g = gCost[id] + problem.getCost(nextCell);
+                if (g >= gCost[next]) {
+                    continue;
+                }
+                gCost[next] = g;
+                parent[next] = id;
+                // A path through a goal to another costs more than stopping at
+                // the first, so goals are recorded but never expanded
+                if ((stateOf[next] & 1) == 1 && problem.getCell(nextCell) == MazeProblem.GOAL) {
+                    if (g < goalCost) {
+                        goal = next;
+                        goalCost = g;
+                    }
+                } else if (!closed.get(next)) {
+                    onOpen.set(next);
+                    push(next);
+                } else if (!inIncons.get(next)) {
+                    inIncons.set(next);
+                    if (inconsSize == incons.length) {
+                        incons = Arrays.copyOf(incons, inconsSize * 2);
+                    }
+                    incons[inconsSize++] = next;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The key of the state with the given id on the frontier, with the
+     * current weight
+     */
+    private long keyOf (int id) {
+        return 10L * gCost[id] + (long) weight * hOf[id];
+    }
+
+    private void push (int id) {
+        open.push(keyOf(id) << 32 | id);
+    }
+
+    /**
+     * Empties the state table, sizing it for the given number of states.
+     */
+    private void resetTable (int capacity) {
+        slots = new int[capacity * 2];
+        slotIds = new int[capacity * 2];
+        Arrays.fill(slots, -1);
+        stateOf = new int[capacity];
+        gCost = new int[capacity];
+        hOf = new int[capacity];
+        parent = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * @return The id of the state, giving it the next id, with an infinite cost,
+     * if it has none yet
+     */
+    private int idOf (int state) {
+        int slot = hash(state) & (slots.length - 1);
+        while (slots[slot] != -1) {
+            if (slots[slot] == state) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        if (size == stateOf.length) {
+            grow();
+            return idOf(state);
+        }
+        slots[slot] = state;
+        slotIds[slot] = size;
+        stateOf[size] = state;
+        gCost[size] = INFINITY;
+        hOf[size] = estimate(state);
+        return size++;
+    }
+
+    /**
+     * Doubles the state table, keeping every id; the slots stay at most half full.
+     */
+    private void grow () {
+        int capacity = stateOf.length * 2;
+        stateOf = Arrays.copyOf(stateOf, capacity);
+        gCost = Arrays.copyOf(gCost, capacity);
+        hOf = Arrays.copyOf(hOf, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        slots = new int[capacity * 2];
+        slotIds = new int[capacity * 2];
+        Arrays.fill(slots, -1);
+        for (int id = 0; id < size; id++) {
+            int slot = hash(stateOf[id]) & (slots.length - 1);
+            while (slots[slot] != -1) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = stateOf[id];
+            slotIds[slot] = id;
+        }
+    }
+
+    private static int hash (int state) {
+        state *= 0x9E3779B9;
+        return state ^ state >>> 16;
+    }
+
+    /**
+     * @return A consistent lower bound on the cost from the given state to a goal,
+     * having collected the key along the way
+     */
+    private int estimate (int state) {
+        int cell = state >>> 1;
+        if ((state & 1) == 1) {
+            return nearestGoal.distance(cell);
+        }
+        return Math.abs(key % cols - cell % cols) + Math.abs(key / cols - cell / cols) + keyToGoal;
+    }
+
+    /**
+     * Gets the path to the best goal along the parent chain, which stays acyclic
+     * as g-costs drop since every state's g exceeds its parent's, and bounds its
+     * cost against the least g + h over the frontier and INCONS.
+     */
+    private SearchResult getResult () {
+        int length = 0, cost = 0;
+        for (int id = goal; parent[id] >= 0; id = parent[id]) {
+            length++;
+            cost += problem.getCost(stateOf[id] >>> 1);
+        }
+        CompactPath path = new CompactPath(length);
+        for (int id = goal, i = length - 1; parent[id] >= 0; id = parent[id], i--) {
+            int diff = (stateOf[id] >>> 1) - (stateOf[parent[id]] >>> 1);
+            path.set(i, diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3);
+        }
+
+        long bound = cost;
+        for (int id = onOpen.nextSetBit(0); id >= 0; id = onOpen.nextSetBit(id + 1)) {
+            bound = Math.min(bound, (long) gCost[id] + hOf[id]);
+        }
+        for (int i = 0; i < inconsSize; i++) {
+            bound = Math.min(bound, (long) gCost[incons[i]] + hOf[incons[i]]);
+        }
+        return new SearchResult(path.toList(), cost, bound == 0 ? 1 : (double) cost / bound);
+    }
+}
@@ -0,0 +1,210 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+/**
+ * Bidirectional Dijkstra over the cells of a MazeProblem. A forward search from
+ * the source and a backward search from every target run at the same time,
+ * each expanding its smaller frontier first, until the cheapest connection found
+ * between them can no longer be beaten. Since moving onto a cell costs that
+ * cell's cost, the backward search charges each step the cost of the cell it
+ * steps back off of.
+ */
+class BidirectionalSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final MazeProblem problem;
+    private final int rows, cols;
+    private final int[] forwardCost, backwardCost, forwardParent, backwardParent;
+    private final int[] neighbours = new int[4];
+    private final BitSet forwardClosed, backwardClosed;
+    private final IndexedMinHeap forward, backward;
+
+    // The cheapest connection found so far: forward cell, backward cell, and cost
+    private int meetFrom, meetTo, best;
+
+    /**
+     * Constructs a new BidirectionalSearch, sizing its scratch arrays to the given problem.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     */
+    BidirectionalSearch (MazeProblem problem) {
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        int cells = rows * cols;
+        this.forwardCost = new int[cells];
+        this.backwardCost = new int[cells];
+        this.forwardParent = new int[cells];
+        this.backwardParent = new int[cells];
+        this.forwardClosed = new BitSet(cells);
+        this.backwardClosed = new BitSet(cells);
+        this.forward = new IndexedMinHeap(cells);
+        this.backward = new IndexedMinHeap(cells);
+    }
+
+    /**
+     * Finds an optimal path from the initial state to the key, and then from the
+     * key to the nearest goal; since every solution passes through the key, the
+     * two legs can be searched independently.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    ArrayList<String> solve () {
+        if (problem.INITIAL_STATE == null || problem.KEY_STATE == null || problem.GOAL_STATE.isEmpty()) {
+            return null;
+        }
+        int start = problem.INITIAL_STATE.row * cols + problem.INITIAL_STATE.col,
+            key   = problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        int[] goals = new int[problem.GOAL_STATE.size()];
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = problem.GOAL_STATE.get(i).row * cols + problem.GOAL_STATE.get(i).col;
+        }
+
+        ArrayList<String> solution = shortestPath(start, new int[] {key});
+        ArrayList<String> toGoal = solution == null ? null : shortestPath(key, goals);
+        if (toGoal == null) {
+            return null;
+        }
+        solution.addAll(toGoal);
+        return solution;
+    }
+
+    /**
+     * Finds an optimal path from the source cell to whichever of the target cells
+     * is cheapest to reach.
+     *
+     * @param source Row-major index of the cell to start from
+     * @param targets Row-major indices of the cells that end the path
+     * @return An ArrayList of Strings representing the actions along the path, or
+     * null if no target can be reached
+     */
+    ArrayList<String> shortestPath (int source, int[] targets) {
+        Arrays.fill(forwardCost, INFINITY);
+        Arrays.fill(backwardCost, INFINITY);
+        forwardClosed.clear();
+        backwardClosed.clear();
+        forward.clear();
+        backward.clear();
+        best = INFINITY;
+
+        forwardCost[source] = 0;
+        forwardParent[source] = -1;
+        forward.push(source, 0);
+        for (int target : targets) {
+            if (backwardCost[target] != 0) {
+                backwardCost[target] = 0;
+                backwardParent[target] = -1;
+                backward.push(target, 0);
+            }
+        }
+        if (backwardCost[source] == 0) {
+            return new ArrayList<String>();
+        }
+
+        // Any path not yet found must leave both settled regions, and so costs at
+        // least the sum of the two smallest frontier keys
+        while (!forward.isEmpty() && !backward.isEmpty() &&
+               forward.getKey(forward.peek()) + backward.getKey(backward.peek()) < best) {
+            if (forward.size() <= backward.size()) {
+                expandForward();
+            } else {
+                expandBackward();
+            }
+        }
+        return best == INFINITY ? null : getSolution();
+    }
+
+    private void expandForward () {
+        int cell = forward.pop();
+        forwardClosed.set(cell);
+        problem.getNeighbours(cell, neighbours);
+        for (int dir = 0; dir < 4; dir++) {
+            int next = neighbours[dir];
+            if (next < 0 || forwardClosed.get(next)) {
+                continue;
+            }
+            int cost = forwardCost[cell] + problem.getCost(next);
+            if (cost < forwardCost[next]) {
+                if (forward.contains(next)) {
+                    forward.decreaseKey(next, cost);
+                } else {
+                    forward.push(next, cost);
+                }
+                forwardCost[next] = cost;
+                forwardParent[next] = cell;
+            }
+            connect(cell, next);
+        }
+    }
+
+    private void expandBackward () {
+        int cell = backward.pop();
+        backwardClosed.set(cell);
+        problem.getNeighbours(cell, neighbours);
+        for (int dir = 0; dir < 4; dir++) {
+            int prev = neighbours[dir];
+            if (prev < 0 || backwardClosed.get(prev)) {
+                continue;
+            }
+            int cost = backwardCost[cell] + problem.getCost(cell);
+            if (cost < backwardCost[prev]) {
+                if (backward.contains(prev)) {
+                    backward.decreaseKey(prev, cost);
+                } else {
+                    backward.push(prev, cost);
+                }
+                backwardCost[prev] = cost;
+                backwardParent[prev] = cell;
+            }
+            connect(prev, cell);
+        }
+    }
+
+    /**
+     * Records the step from one cell onto an adjacent one as the best connection
+     * between the two searches if it is, reaching from as labelled by the forward
+     * search and to as labelled by the backward search.
+     */
+    private void connect (int from, int to) {
+        if (forwardCost[from] == INFINITY || backwardCost[to] == INFINITY) {
+            return;
+        }
+        int cost = forwardCost[from] + problem.getCost(to) + backwardCost[to];
+        if (cost < best) {
+            best = cost;
+            meetFrom = from;
+            meetTo = to;
+        }
+    }
+
+    /**
+     * Gets the path through the best connection: back along the forward parents
+     * to the source, then on along the backward parents to a target.
+     */
+    private ArrayList<String> getSolution () {
+        ArrayList<String> solution = new ArrayList<String>();
+        for (int cell = meetFrom; forwardParent[cell] >= 0; cell = forwardParent[cell]) {
+            solution.add(action(forwardParent[cell], cell));
+        }
+        Collections.reverse(solution);
+        solution.add(action(meetFrom, meetTo));
+        for (int cell = meetTo; backwardParent[cell] >= 0; cell = backwardParent[cell]) {
+            solution.add(action(cell, backwardParent[cell]));
+        }
+        return solution;
+    }
+
+    private String action (int from, int to) {
+        int diff = to - from;
+        return MazeProblem.ACTIONS[diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3];
+    }
+}
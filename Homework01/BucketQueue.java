@@ -0,0 +1,127 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue over the cells 0 .. capacity-1. Every queued key must lie
+ * within span of the smallest queued key, which holds for A* with a consistent
+ * heuristic and small integer step costs; keys then map onto a ring of span
+ * buckets, each a doubly-linked list of cells, for O(1) push, decrease-key
+ * and (amortized) pop.
+ */
+class BucketQueue implements CellQueue {
+
+    private final int[] head, next, prev;
+    private final long[] keys;
+    private final int mask;
+    private long current;
+    private int size;
+
+    /**
+     * Constructs a new, empty BucketQueue.
+     *
+     * @param capacity One more than the largest cell that will be pushed
+     * @param span Bound on the difference between any queued key and the
+     * smallest queued key; rounded up to a power of two
+     */
+    BucketQueue (int capacity, int span) {
+        int buckets = Integer.highestOneBit(Math.max(1, span - 1)) << 1;
+        head = new int[buckets];
+        next = new int[capacity];
+        prev = new int[capacity];
+        keys = new long[capacity];
+        mask = buckets - 1;
+        Arrays.fill(head, -1);
+        Arrays.fill(prev, -2);
+    }
+
+    @Override
+    public boolean isEmpty () {
+        return size == 0;
+    }
+
+    @Override
+    public int size () {
+        return size;
+    }
+
+    @Override
+    public boolean contains (int cell) {
+        return prev[cell] != -2;
+    }
+
+    @Override
+    public long getKey (int cell) {
+        return keys[cell];
+    }
+
+    @Override
+    public void push (int cell, long key) {
+        if (key < current || key - current > mask) {
+            if (size > 0) {
+                throw new IllegalStateException("Key " + key + " is outside the bucket range from " + current);
+            }
+            current = key;
+        }
+        keys[cell] = key;
+        link(cell);
+        size++;
+    }
+
+    @Override
+    public void decreaseKey (int cell, long key) {
+        if (key < current) {
+            throw new IllegalStateException("Key " + key + " is below the smallest queued key " + current);
+        }
+        unlink(cell);
+        keys[cell] = key;
+        link(cell);
+    }
+
+    @Override
+    public int pop () {
+        while (head[(int) current & mask] < 0) {
+            current++;
+        }
+        int cell = head[(int) current & mask];
+        unlink(cell);
+        prev[cell] = -2;
+        size--;
+        return cell;
+    }
+
+    @Override
+    public void clear () {
+        for (int b = 0; b <= mask; b++) {
+            for (int cell = head[b]; cell >= 0; cell = next[cell]) {
+                prev[cell] = -2;
+            }
+            head[b] = -1;
+        }
+        size = 0;
+    }
+
+    private void link (int cell) {
+        int bucket = (int) keys[cell] & mask;
+        next[cell] = head[bucket];
+        prev[cell] = -1;
+        if (head[bucket] >= 0) {
+            prev[head[bucket]] = cell;
+        }
+        head[bucket] = cell;
+    }
+
+    private void unlink (int cell) {
+        if (prev[cell] >= 0) {
+            next[prev[cell]] = next[cell];
+        } else {
+            head[(int) keys[cell] & mask] = next[cell];
+        }
+        if (next[cell] >= 0) {
+            prev[next[cell]] = prev[cell];
+        }
+    }
+}
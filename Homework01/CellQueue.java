@@ -0,0 +1,62 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+/**
+ * Priority queue over the cells 0 .. capacity-1 of a maze, holding each cell at
+ * most once and ordered by a long key; used as the frontier of the
+ * int-encoded searches.
+ */
+interface CellQueue {
+
+    /**
+     * @return Boolean of whether or not the queue holds no cells
+     */
+    boolean isEmpty ();
+
+    /**
+     * @return The number of cells in the queue
+     */
+    int size ();
+
+    /**
+     * @param cell The cell to test
+     * @return Boolean of whether or not the cell is currently queued
+     */
+    boolean contains (int cell);
+
+    /**
+     * @param cell A cell currently in the queue
+     * @return The key the cell is ordered by
+     */
+    long getKey (int cell);
+
+    /**
+     * Adds the given cell, which must not already be queued.
+     *
+     * @param cell The cell to add
+     * @param key The key to order the cell by
+     */
+    void push (int cell, long key);
+
+    /**
+     * Lowers the key of a cell already in the queue.
+     *
+     * @param cell The cell to update
+     * @param key The new key, no greater than its current key
+     */
+    void decreaseKey (int cell, long key);
+
+    /**
+     * Removes and returns the cell with the smallest key.
+     *
+     * @return The removed cell
+     */
+    int pop ();
+
+    /**
+     * Removes every cell from the queue.
+     */
+    void clear ();
+}
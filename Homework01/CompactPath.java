@@ -0,0 +1,152 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A path through a maze stored as 2-bit direction codes, four to a byte, where
+ * codes 0, 1, 2, 3 stand for the actions "U", "D", "L", "R" as in
+ * MazeProblem.ACTIONS. A path of a million steps takes 250KB, rather than the
+ * 4MB or more of String references in an ArrayList, and is printed run-length
+ * encoded, e.g. "R*120,D*4".
+ */
+public class CompactPath {
+
+    private final byte[] codes;
+    private final int length;
+
+    /**
+     * Constructs a new CompactPath of the given length, every step of which is
+     * "U" until set.
+     *
+     * @param length The number of steps on the path
+     */
+    CompactPath (int length) {
+        this.codes = new byte[(length + 3) >>> 2];
+        this.length = length;
+    }
+
+    /**
+     * Builds a CompactPath from a list of actions.
+     *
+     * @param actions Actions of the format: ["R", "R", "L", ...]
+     * @return The same path, compacted
+     * @throws IllegalArgumentException If any action is not one of "U", "D",
+     * "L", or "R"
+     */
+    public static CompactPath of (List<String> actions) {
+        CompactPath path = new CompactPath(actions.size());
+        int i = 0;
+        for (String action : actions) {
+            path.set(i++, direction(action));
+        }
+        return path;
+    }
+
+    /**
+     * @return The direction code of the given action
+     * @throws IllegalArgumentException If it is not one of "U", "D", "L", or "R"
+     */
+    private static int direction (String action) {
+        switch (action == null ? "" : action) {
+            case "U": return 0;
+            case "D": return 1;
+            case "L": return 2;
+            case "R": return 3;
+            default: throw new IllegalArgumentException("Not an action: " + action);
+        }
+    }
+
+    /**
+     * Sets the direction code of the given step.
+     *
+     * @param step The index of the step, from 0
+     * @param dir The direction code, from 0 to 3
+     */
+    void set (int step, int dir) {
+        int shift = (step & 3) << 1;
+        codes[step >>> 2] = (byte) (codes[step >>> 2] & ~(3 << shift) | dir << shift);
+    }
+
+    /**
+     * @return The packed direction codes, step i in bits 2 * (i % 4) and up of
+     * byte i / 4; not a copy, so callers must not change it
+     */
+    byte[] getCodes () {
+        return codes;
+    }
+
+    /**
+     * @return The number of steps on the path
+     */
+    public int length () {
+        return length;
+    }
+
+    /**
+     * @param step The index of the step, from 0
+     * @return The direction code of the step, an index into MazeProblem.ACTIONS
+     */
+    public int getDirection (int step) {
+        if (step < 0 || step >= length) {
+            throw new IndexOutOfBoundsException("Step " + step + " of " + length);
+        }
+        return codes[step >>> 2] >>> ((step & 3) << 1) & 3;
+    }
+
+    /**
+     * @param step The index of the step, from 0
+     * @return The action taken at the step: "U", "D", "L", or "R"
+     */
+    public String getAction (int step) {
+        return MazeProblem.ACTIONS[getDirection(step)];
+    }
+
+    /**
+     * @return The path as an ArrayList of Strings representing actions, of the
+     * format: ["R", "R", "L", ...]
+     */
+    public ArrayList<String> toList () {
+        ArrayList<String> actions = new ArrayList<String>(length);
+        for (int step = 0; step < length; step++) {
+            actions.add(MazeProblem.ACTIONS[getDirection(step)]);
+        }
+        return actions;
+    }
+
+    @Override
+    public boolean equals (Object other) {
+        return other instanceof CompactPath
+            ? length == ((CompactPath) other).length && Arrays.equals(codes, ((CompactPath) other).codes)
+            : false;
+    }
+
+    @Override
+    public int hashCode () {
+        return 31 * length + Arrays.hashCode(codes);
+    }
+
+    /**
+     * @return The path run-length encoded, as each run of a repeated action and
+     * its length, separated by commas, e.g. "R*120,D*4"
+     */
+    public String toString () {
+        StringBuilder result = new StringBuilder();
+        for (int step = 0; step < length; ) {
+            int dir = getDirection(step), run = 1;
+            while (step + run < length && getDirection(step + run) == dir) {
+                run++;
+            }
+            if (step > 0) {
+                result.append(',');
+            }
+            result.append(MazeProblem.ACTIONS[dir]).append('*').append(run);
+            step += run;
+        }
+        return result.toString();
+    }
+}
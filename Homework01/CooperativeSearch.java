@@ -0,0 +1,423 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Windowed Hierarchical Cooperative A* (WHCA*) for many agents in one MazeProblem,
+ * each going from its own start through the key to any goal, where it leaves the
+ * maze. No two agents are ever on one cell at one tick, nor swap cells in one.<br>
+ * Time moves in rounds. At the start of each, the agents plan one after another,
+ * in a priority order that rotates every round, each by A* over (cell, keyObtained,
+ * tick) states for the next window of ticks, with "W" among its actions; every move
+ * must be free in a shared ReservationTable, into which the plan found is then
+ * reserved. A plan ends at the end of the window, scored by the exact cost left
+ * from there, which ignores other agents and is computed once for all of them. The
+ * agents yet to plan keep their cells for the next tick only, so that those ahead
+ * of them may plan through and push them aside; one that is left no plan is moved
+ * to the front of the order, and the round planned again. Every agent then follows
+ * the first half of its plan before all of them plan again.<br>
+ * Agents that cannot reach a goal, or that are still in the maze after enough rounds
+ * pass with no agent leaving or getting any closer, are given no path.
+ */
+class CooperativeSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE, UNREACHABLE = DistanceField.UNREACHABLE;
+
+    // The rank of an agent that has given up, and keeps its cell from everyone
+    private static final int STUCK = Integer.MAX_VALUE;
+
+    private final MazeProblem problem;
+    private final int cols, key, keyToGoal, window, agents;
+    private final int[] toKey, toGoal, neighbours = new int[4];
+    private final ReservationTable reservations;
+
+    // Each agent's current cell, or -1 once it has left, whether it holds the
+    // key, and the actions taken so far
+    private final int[] position;
+    private final boolean[] hasKey;
+    private final List<ArrayList<String>> actions;
+
+    // The agents still to plan this round keep their cells for the next tick, or
+    // the whole window: parked maps each of those cells to the rank in the
+    // planning order of the agent on it
+    private int[] parkedCells, parkedRanks;
+
+    // Nodes of the space-time search, each a (cell * 2 + keyObtained) state at a
+    // depth into the window, given dense ids by an open-addressing table
+    private long[] slots;
+    private int[] slotIds, stateOf, depthOf, gCost, parent;
+    private int size;
+    private final BitSet closed = new BitSet();
+
+    /**
+     * Constructs a new CooperativeSearch, computing the exact cost from every cell
+     * to the key and to the nearest goal.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param starts The MazeState (col, row) each agent starts on
+     * @param window The number of ticks each agent plans ahead
+     * @throws IllegalArgumentException If the maze has several keys, the window is
+     * not positive, or a start is off the maze, on a wall, or shared by two agents
+     */
+    CooperativeSearch (MazeProblem problem, List<MazeState> starts, int window) {
+        if (problem.KEY_STATES.size() > 1) {
+            throw new IllegalArgumentException("Cooperative search supports at most one key");
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        this.problem = problem;
+        this.cols = problem.getCols();
+        this.window = window;
+        this.agents = starts.size();
+        this.key = problem.KEY_STATE == null ? -1 : problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        int[] goals = new int[problem.GOAL_STATE.size()];
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = problem.GOAL_STATE.get(i).row * cols + problem.GOAL_STATE.get(i).col;
+        }
+        this.toGoal = DistanceField.reverse(problem, goals);
+        this.toKey = key < 0 ? null : DistanceField.reverse(problem, new int[] {key});
+        this.keyToGoal = key < 0 ? UNREACHABLE : toGoal[key];
+
+        this.position = new int[agents];
+        this.hasKey = new boolean[agents];
+        this.actions = new ArrayList<ArrayList<String>>(agents);
+        int[] sorted = new int[agents];
+        for (int i = 0; i < agents; i++) {
+            MazeState start = starts.get(i);
+            if (!problem.inBounds(start.col, start.row) ||
+                problem.getCell(start.row * cols + start.col) == MazeProblem.WALL) {
+                throw new IllegalArgumentException("Agent " + i + " does not start on open floor");
+            }
+            position[i] = sorted[i] = start.row * cols + start.col;
+            hasKey[i] = position[i] == key;
+            actions.add(new ArrayList<String>());
+        }
+        Arrays.sort(sorted);
+        for (int i = 1; i < agents; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                throw new IllegalArgumentException("Two agents start on one cell");
+            }
+        }
+        this.reservations = new ReservationTable(window + 1, agents);
+    }
+
+    /**
+     * Moves every agent to a goal without collisions.
+     *
+     * @return A List holding, for each agent in the order of the starts, the actions
+     * that lead it from its start through the key to a goal, of the format:
+     * ["R", "W", "L", ...], or null if it was given no path
+     */
+    List<ArrayList<String>> solve () {
+        boolean[] stuck = new boolean[agents];
+        int active = 0;
+        for (int i = 0; i < agents; i++) {
+            if (estimate(position[i] * 2 + (hasKey[i] ? 1 : 0)) == INFINITY) {
+                stuck[i] = true;
+            } else {
+                active++;
+            }
+        }
+
+        // Rounds in which no agent has left or come closer than ever before
+        long best = Long.MAX_VALUE;
+        int stalled = 0;
+        int[] order = new int[agents], plans = new int[agents * (window + 1)];
+        for (int round = 0, tick = 0; active > 0 && stalled <= agents + 1; round++) {
+            int count = 0;
+            for (int i = 0; i < agents; i++) {
+                int agent = (i + round) % agents;
+                if (position[agent] >= 0 && !stuck[agent]) {
+                    order[count++] = agent;
+                }
+            }
+            // An agent that finds no plan is moved to the front of the order, where
+            // it always finds one, and the round planned again; should that go on,
+            // the agents yet to plan keep their cells for the whole window
+            for (int attempt = 0; ; attempt++) {
+                boolean holdAll = attempt > count;
+                park(order, count, stuck);
+                reservations.clear();
+                int failed = -1;
+                for (int rank = 0; rank < count && failed < 0; rank++) {
+                    if (!plan(order[rank], rank, tick, holdAll, plans, order[rank] * (window + 1))) {
+                        failed = rank;
+                    }
+                }
+                if (failed < 0) {
+                    break;
+                }
+                int agent = order[failed];
+                System.arraycopy(order, 0, order, 1, failed);
+                order[0] = agent;
+            }
+
+            // Follow the first half of every plan, or all of it if it ends sooner
+            int steps = Math.max(1, window / 2), left = 0;
+            long remaining = 0;
+            for (int rank = 0; rank < count; rank++) {
+                int agent = order[rank], base = agent * (window + 1);
+                for (int step = 1; step <= steps && position[agent] >= 0; step++) {
+                    int next = plans[base + step] >>> 1, from = position[agent];
+                    actions.get(agent).add(next == from ? MazeProblem.WAIT : MazeProblem.ACTIONS[direction(from, next)]);
+                    position[agent] = next;
+                    hasKey[agent] |= next == key;
+                    if (hasKey[agent] && problem.getCell(next) == MazeProblem.GOAL) {
+                        position[agent] = -1;
+                        left++;
+                    }
+                }
+                if (position[agent] >= 0) {
+                    remaining += estimate(position[agent] * 2 + (hasKey[agent] ? 1 : 0));
+                }
+            }
+            tick += steps;
+            active -= left;
+            if (left > 0 || remaining < best) {
+                best = Math.min(best, remaining);
+                stalled = 0;
+            } else {
+                stalled++;
+            }
+        }
+
+        List<ArrayList<String>> result = new ArrayList<ArrayList<String>>(agents);
+        for (int i = 0; i < agents; i++) {
+            result.add(position[i] >= 0 ? null : actions.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Fills the parked table with the cells of the given agents, at their ranks,
+     * and of the stuck agents, which rank behind everyone.
+     */
+    private void park (int[] order, int count, boolean[] stuck) {
+        int capacity = Integer.highestOneBit(Math.max(1, agents) * 2 - 1) * 2;
+        if (parkedCells == null || parkedCells.length != capacity) {
+            parkedCells = new int[capacity];
+            parkedRanks = new int[capacity];
+        }
+        Arrays.fill(parkedCells, -1);
+        for (int rank = 0; rank < count; rank++) {
+            parkCell(position[order[rank]], rank);
+        }
+        for (int i = 0; i < agents; i++) {
+            if (stuck[i] && position[i] >= 0) {
+                parkCell(position[i], STUCK);
+            }
+        }
+    }
+
+    private void parkCell (int cell, int rank) {
+        int slot = hash(cell) & (parkedCells.length - 1);
+        while (parkedCells[slot] != -1) {
+            slot = (slot + 1) & (parkedCells.length - 1);
+        }
+        parkedCells[slot] = cell;
+        parkedRanks[slot] = rank;
+    }
+
+    /**
+     * @return The rank of the agent keeping the cell, which has yet to plan or is
+     * STUCK, or -1 if none is
+     */
+    private int keeperOf (int cell) {
+        for (int slot = hash(cell) & (parkedCells.length - 1); parkedCells[slot] != -1;
+             slot = (slot + 1) & (parkedCells.length - 1)) {
+            if (parkedCells[slot] == cell) {
+                return parkedRanks[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Plans the given agent's next window of ticks by A* over (state, depth) nodes,
+     * and reserves it. A plan is found at rank 0, where nothing is reserved yet, and
+     * when agents ranked after hold their cells for the whole window, since waiting
+     * in place is then always free.
+     *
+     * @param holdAll Whether the cells of agents ranked after are kept from this one
+     * for the whole window, rather than the next tick only
+     * @param plans Where to write the state at each depth of the plan, from 0; a plan
+     * that reaches a goal before the end of the window ends there
+     * @return Boolean of whether or not a plan was found
+     */
+    private boolean plan (int agent, int rank, int tick, boolean holdAll, int[] plans, int base) {
+        resetTable(1 << 8);
+        int startState = position[agent] * 2 + (hasKey[agent] ? 1 : 0);
+        int start = idOf(startState, 0);
+        gCost[start] = 0;
+        parent[start] = -1;
+        LongHeap frontier = new LongHeap();
+        frontier.push((long) estimate(startState) << 32 | start);
+
+        int end = -1;
+        while (!frontier.isEmpty()) {
+            long entry = frontier.pop();
+            int id = (int) entry;
+            if (closed.get(id)) {
+                continue;
+            }
+            closed.set(id);
+            int state = stateOf[id], cell = state >>> 1, depth = depthOf[id];
+            if (depth == window || (state & 1) == 1 && problem.getCell(cell) == MazeProblem.GOAL) {
+                end = id;
+                break;
+            }
+
+            // Four moves and a wait, which stays on the cell for the cost of a step
+            problem.getNeighbours(cell, neighbours);
+            for (int dir = 0; dir <= 4; dir++) {
+                int nextCell = dir == 4 ? cell : neighbours[dir];
+                if (nextCell < 0 || !reservations.canMove(tick + depth + 1, cell, nextCell)) {
+                    continue;
+                }
+                int keeper = keeperOf(nextCell);
+                if (keeper > rank && (keeper == STUCK || holdAll || depth == 0)) {
+                    continue;
+                }
+                int nextState = nextCell * 2 + (nextCell == key ? 1 : state & 1), h = estimate(nextState);
+                if (h == INFINITY) {
+                    continue;
+                }
+                int next = idOf(nextState, depth + 1), g = gCost[id] + (dir == 4 ? 1 : problem.getCost(nextCell));
+                if (!closed.get(next) && g < gCost[next]) {
+                    gCost[next] = g;
+                    parent[next] = id;
+                    frontier.push((long) (g + h) << 32 | next);
+                }
+            }
+        }
+        if (end < 0) {
+            return false;
+        }
+
+        // Write the plan out front to back, and hold its last cell to the end of
+        // the window unless the agent leaves there
+        for (int id = end; id >= 0; id = parent[id]) {
+            plans[base + depthOf[id]] = stateOf[id];
+        }
+        int last = depthOf[end], lastState = stateOf[end];
+        boolean leaves = (lastState & 1) == 1 && problem.getCell(lastState >>> 1) == MazeProblem.GOAL;
+        for (int depth = 1; depth <= window; depth++) {
+            if (depth > last) {
+                if (leaves) {
+                    break;
+                }
+                plans[base + depth] = lastState;
+            }
+            reservations.reserve(tick + depth, plans[base + depth] >>> 1, plans[base + depth - 1] >>> 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return The exact cost from the state to a goal, having collected the key
+     * along the way, ignoring other agents, or INFINITY if there is none
+     */
+    private int estimate (int state) {
+        int cell = state >>> 1;
+        if ((state & 1) == 1) {
+            return toGoal[cell] == UNREACHABLE ? INFINITY : toGoal[cell];
+        }
+        if (toKey == null || toKey[cell] == UNREACHABLE || keyToGoal == UNREACHABLE) {
+            return INFINITY;
+        }
+        return toKey[cell] + keyToGoal;
+    }
+
+    /**
+     * @return The direction code of the move from one cell to a neighbour
+     */
+    private int direction (int from, int to) {
+        int diff = to - from;
+        return diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3;
+    }
+
+    /**
+     * Empties the node table, sizing it for the given number of nodes.
+     */
+    private void resetTable (int capacity) {
+        slots = new long[capacity * 2];
+        slotIds = new int[capacity * 2];
+        Arrays.fill(slots, -1);
+        stateOf = new int[capacity];
+        depthOf = new int[capacity];
+        gCost = new int[capacity];
+        parent = new int[capacity];
+        size = 0;
+        closed.clear();
+    }
+
+    /**
+     * @return The id of the node (state, depth), giving it the next id, with an
+     * infinite cost, if it has none yet
+     */
+    private int idOf (int state, int depth) {
+        long node = (long) depth << 32 | state;
+        int slot = hash(node) & (slots.length - 1);
+        while (slots[slot] != -1) {
+            if (slots[slot] == node) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        if (size == stateOf.length) {
+            grow();
+            return idOf(state, depth);
+        }
+        slots[slot] = node;
+        slotIds[slot] = size;
+        stateOf[size] = state;
+        depthOf[size] = depth;
+        gCost[size] = INFINITY;
+        return size++;
+    }
+
+    /**
+     * Doubles the node table, keeping every id; the slots stay at most half full.
+     */
+    private void grow () {
+        int capacity = stateOf.length * 2;
+        stateOf = Arrays.copyOf(stateOf, capacity);
+        depthOf = Arrays.copyOf(depthOf, capacity);
+        gCost = Arrays.copyOf(gCost, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        slots = new long[capacity * 2];
+        slotIds = new int[capacity * 2];
+        Arrays.fill(slots, -1);
+        for (int id = 0; id < size; id++) {
+            long node = (long) depthOf[id] << 32 | stateOf[id];
+            int slot = hash(node) & (slots.length - 1);
+            while (slots[slot] != -1) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = node;
+            slotIds[slot] = id;
+        }
+    }
+
+    private static int hash (int cell) {
+        cell *= 0x9E3779B9;
+        return cell ^ cell >>> 16;
+    }
+
+    /**
+     * @return A well-mixed hash of the node, from the finalizer of MurmurHash3
+     */
+    private static int hash (long node) {
+        node ^= node >>> 33;
+        node *= 0xff51afd7ed558ccdL;
+        node ^= node >>> 33;
+        return (int) node;
+    }
+}
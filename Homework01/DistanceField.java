@@ -0,0 +1,147 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Computes exact cost fields over the cells of a MazeProblem with Dijkstra's
+ * algorithm. Step costs are small integers, so the frontier is a BucketQueue.
+ * Also computes the Manhattan distance from every cell to its nearest source,
+ * which ignores walls and mud, by a two-pass distance transform.
+ */
+class DistanceField {
+
+    /** Distance of a cell from which no source can be reached */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * Runs Dijkstra forward from the given cell, giving the cost of the cheapest
+     * path from it to every cell; moving onto a cell costs that cell's cost.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param source Row-major index of the cell to measure the cost from
+     * @return An int[] of the cost from the source to every cell, or UNREACHABLE
+     * if there is no path
+     */
+    static int[] forward (MazeProblem problem, int source) {
+        int cols = problem.getCols(), cells = problem.getRows() * cols;
+        int[] dist = new int[cells], neighbours = new int[4];
+        Arrays.fill(dist, UNREACHABLE);
+        BucketQueue frontier = new BucketQueue(cells, MazeProblem.MUD_COST + 1);
+        dist[source] = 0;
+        frontier.push(source, 0);
+
+        while (!frontier.isEmpty()) {
+            int cell = frontier.pop();
+            problem.getNeighbours(cell, neighbours);
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbours[dir];
+                if (next < 0) {
+                    continue;
+                }
+                int cost = dist[cell] + problem.getCost(next);
+                if (cost >= dist[next]) {
+                    continue;
+                }
+                if (frontier.contains(next)) {
+                    frontier.decreaseKey(next, cost);
+                } else {
+                    frontier.push(next, cost);
+                }
+                dist[next] = cost;
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Runs one multi-source Dijkstra backward from the given cells, giving the cost
+     * of the cheapest path from every cell to the nearest of them; moving onto a
+     * cell costs that cell's cost, so a step backward is charged the cost of the
+     * cell it steps back off of.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param sources Row-major indices of the cells to measure the cost to
+     * @return An int[] of the cost from every cell to its nearest source, or
+     * UNREACHABLE if there is none
+     */
+    static int[] reverse (MazeProblem problem, int[] sources) {
+        int cols = problem.getCols(), cells = problem.getRows() * cols;
+        int[] dist = new int[cells], neighbours = new int[4];
+        Arrays.fill(dist, UNREACHABLE);
+        BucketQueue frontier = new BucketQueue(cells, MazeProblem.MUD_COST + 1);
+        for (int source : sources) {
+            if (dist[source] != 0) {
+                dist[source] = 0;
+                frontier.push(source, 0);
+            }
+        }
+
+        while (!frontier.isEmpty()) {
+            int cell = frontier.pop(), cost = dist[cell] + problem.getCost(cell);
+            problem.getNeighbours(cell, neighbours);
+            for (int dir = 0; dir < 4; dir++) {
+                int prev = neighbours[dir];
+                if (prev < 0 || cost >= dist[prev]) {
+                    continue;
+                }
+                if (frontier.contains(prev)) {
+                    frontier.decreaseKey(prev, cost);
+                } else {
+                    frontier.push(prev, cost);
+                }
+                dist[prev] = cost;
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Computes the Manhattan distance from every cell to the nearest of the given
+     * cells, walls and mud notwithstanding, in two raster passes: the first
+     * carries distances down and to the right, the second up and to the left,
+     * and every shortest L1 path is a run of moves in two such directions.
+     * Takes time linear in the number of cells, whatever the number of sources.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param sources Row-major indices of the cells to measure the distance to
+     * @return An int[] of the Manhattan distance from every cell to its nearest
+     * source, or UNREACHABLE if there are no sources
+     */
+    static int[] manhattan (MazeProblem problem, int[] sources) {
+        int rows = problem.getRows(), cols = problem.getCols();
+        int[] dist = new int[rows * cols];
+        Arrays.fill(dist, UNREACHABLE);
+        if (sources.length == 0) {
+            return dist;
+        }
+        for (int source : sources) {
+            dist[source] = 0;
+        }
+        // Cells before the first source in either pass still hold UNREACHABLE,
+        // which is not carried on
+        for (int cell = 0, row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++, cell++) {
+                if (row > 0 && dist[cell - cols] != UNREACHABLE) {
+                    dist[cell] = Math.min(dist[cell], dist[cell - cols] + 1);
+                }
+                if (col > 0 && dist[cell - 1] != UNREACHABLE) {
+                    dist[cell] = Math.min(dist[cell], dist[cell - 1] + 1);
+                }
+            }
+        }
+        for (int cell = rows * cols - 1, row = rows - 1; row >= 0; row--) {
+            for (int col = cols - 1; col >= 0; col--, cell--) {
+                if (row < rows - 1 && dist[cell + cols] != UNREACHABLE) {
+                    dist[cell] = Math.min(dist[cell], dist[cell + cols] + 1);
+                }
+                if (col < cols - 1 && dist[cell + 1] != UNREACHABLE) {
+                    dist[cell] = Math.min(dist[cell], dist[cell + 1] + 1);
+                }
+            }
+        }
+        return dist;
+    }
+}
@@ -0,0 +1,183 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A* search over the (cell, keyObtained) states of a MazeProblem, in which every
+ * state is encoded as the int (row * cols + col) * 2 + (keyObtained ? 1 : 0).
+ * The closed set is a BitSet and the g-costs an int[], so expanding a node
+ * allocates no MazeState or boxed objects.
+ */
+class GridSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final Pathfinder.Frontier frontierType;
+    private final SearchListener listener;
+    private MazeProblem problem;
+    private int rows, cols;
+    private int[] gCost = new int[0], parent = new int[0], neighbours = new int[4];
+    private BitSet closed = new BitSet();
+    private CellQueue frontier;
+    private final KeyGoalHeuristic.Scratch heuristicScratch = new KeyGoalHeuristic.Scratch();
+
+    /**
+     * Constructs a new GridSearch; its scratch arrays, and those of its heuristic,
+     * are sized to the first problem solved, and reused for every later one that
+     * fits in them.
+     *
+     * @param frontierType The data structure to hold the frontier in
+     */
+    GridSearch (Pathfinder.Frontier frontierType) {
+        this(frontierType, null);
+    }
+
+    /**
+     * Constructs a new GridSearch that reports the metrics of every search to the
+     * given listener, including those of mazes with several keys, which are
+     * searched by MultiKeySearch.
+     *
+     * @param frontierType The data structure to hold the frontier in
+     * @param listener The SearchListener to report to, or null for none
+     */
+    GridSearch (Pathfinder.Frontier frontierType, SearchListener listener) {
+        this.frontierType = frontierType;
+        this.listener = listener;
+    }
+
+    /**
+     * Points this search at the given problem, growing the scratch arrays if it
+     * has more states than any problem before it.
+     */
+    private void reset (MazeProblem problem) {
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        int states = rows * cols * 2;
+        if (states > gCost.length) {
+            gCost = new int[states];
+            parent = new int[states];
+            closed = new BitSet(states);
+            // With a consistent heuristic, a child's f exceeds its parent's by at
+            // most the cost of the step there and back, which bounds the spread
+            // of f-costs in the frontier for the bucket queue
+            frontier = frontierType == Pathfinder.Frontier.BUCKET_QUEUE
+                ? new BucketQueue(states, 2 * MazeProblem.MUD_COST + 1)
+                : new IndexedMinHeap(states);
+        }
+        Arrays.fill(gCost, 0, states, INFINITY);
+        closed.clear();
+        frontier.clear();
+    }
+
+    /**
+     * Finds an optimal path from the initial state through the key to any goal,
+     * in a single search over (cell, keyObtained) states; a maze with several keys
+     * is solved by MultiKeySearch instead.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    ArrayList<String> solve (MazeProblem problem) {
+        CompactPath path = solveCompact(problem);
+        return path == null ? null : path.toList();
+    }
+
+    /**
+     * Finds an optimal path as in solve, in compact form.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return The actions that lead from the initial to the goal state, or null if
+     * there is none
+     */
+    CompactPath solveCompact (MazeProblem problem) {
+        if (problem.KEY_STATES.size() > 1) {
+            return new MultiKeySearch(problem, listener).solveCompact(problem.INITIAL_STATE);
+        }
+        long startTime = listener == null ? 0 : System.nanoTime(), keyTime = 0;
+        long expanded = 0, generated = 0, peakFrontier = 0;
+        KeyGoalHeuristic heuristic = KeyGoalHeuristic.create(problem, heuristicScratch);
+        if (problem.INITIAL_STATE == null || heuristic == null) {
+            if (listener != null) {
+                listener.searchFinished(new SearchMetrics(0, 0, 0, 0, 0, 0, -1, System.nanoTime() - startTime, 0));
+            }
+            return null;
+        }
+        reset(problem);
+        int start = (problem.INITIAL_STATE.row * cols + problem.INITIAL_STATE.col) * 2,
+            key   = problem.KEY_STATE.row * cols + problem.KEY_STATE.col,
+            initialEstimate = heuristic.estimate(start >>> 1, false), end = -1;
+        gCost[start] = 0;
+        parent[start] = -1;
+        frontier.push(start, initialEstimate);
+
+        while (!frontier.isEmpty()) {
+            peakFrontier = Math.max(peakFrontier, frontier.size());
+            int state = frontier.pop(), cell = state >>> 1, hasKey = state & 1;
+            closed.set(state);
+            if (listener != null && hasKey == 1 && keyTime == 0) {
+                keyTime = System.nanoTime();
+            }
+            if (hasKey == 1 && problem.getCell(cell) == MazeProblem.GOAL) {
+                end = state;
+                break;
+            }
+            expanded++;
+
+            problem.getNeighbours(cell, neighbours);
+            for (int dir = 0; dir < 4; dir++) {
+                int nextCell = neighbours[dir];
+                if (nextCell < 0) {
+                    continue;
+                }
+                int next = nextCell * 2 + (nextCell == key ? 1 : hasKey);
+                if (closed.get(next)) {
+                    continue;
+                }
+                int g = gCost[state] + problem.getCost(nextCell);
+                if (g < gCost[next]) {
+                    // Each state is in the frontier at most once; a cheaper path
+                    // to a queued state lowers its key in place
+                    if (frontier.contains(next)) {
+                        frontier.decreaseKey(next, frontier.getKey(next) - (gCost[next] - g));
+                    } else {
+                        frontier.push(next, g + heuristic.estimate(nextCell, (next & 1) == 1));
+                    }
+                    gCost[next] = g;
+                    parent[next] = state;
+                    generated++;
+                }
+            }
+        }
+        if (listener != null) {
+            long endTime = System.nanoTime();
+            keyTime = keyTime == 0 ? endTime : keyTime;
+            listener.searchFinished(new SearchMetrics(expanded, generated, peakFrontier, closed.cardinality(), 0,
+                initialEstimate, end < 0 ? -1 : gCost[end], keyTime - startTime, endTime - keyTime));
+        }
+        return end < 0 ? null : getSolution(end);
+    }
+
+    /**
+     * Gets the path taken to reach the given state along the parent chain,
+     * from earliest to most recent.
+     */
+    private CompactPath getSolution (int end) {
+        int length = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) {
+            length++;
+        }
+        CompactPath path = new CompactPath(length);
+        for (int state = end, i = length - 1; parent[state] >= 0; state = parent[state], i--) {
+            int diff = (state >>> 1) - (parent[state] >>> 1);
+            path.set(i, diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,507 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Hierarchical pathfinding (HPA*) over a MazeProblem. The maze is split into
+ * square clusters; along each border between two clusters, every run of open
+ * cell pairs becomes an entrance with a node on either side, one in the middle
+ * of short runs and one at each end of long ones. The abstract graph links the
+ * two nodes of each entrance, and every pair of nodes in a cluster by their
+ * exact cost within it, mud included. The graph is built once, and a query only
+ * searches it, then refines each abstract edge on its path into cells within a
+ * single cluster. Since a path must cross borders at entrance nodes, the result
+ * may be slightly longer than optimal.<br>
+ * The graph is kept in flat arrays: nodes are numbered cluster by cluster, in
+ * row-major order within each, so that the nodes of a cluster are a contiguous
+ * run and their costs to one another a square matrix. Queries share scratch
+ * arrays, so they are serialized.
+ */
+class HierarchicalSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    // Runs of open border at least this long get an entrance at each end
+    private static final int LONG_ENTRANCE = 6;
+
+    // With more targets than this, the abstract search runs without a heuristic
+    // rather than take the Manhattan distance to every target at every node
+    private static final int SCAN_TARGETS = 8;
+
+    private final MazeProblem problem;
+    private final int rows, cols, size, clusterCols;
+
+    // Abstract graph: the cell of each node; the first node of each cluster, and
+    // one past its last at the next cluster's entry; where each cluster's cost
+    // matrix starts in intra, row by row from each of its nodes; and the node,
+    // and cost, across a border from each node, two slots per node, -1 if unused
+    private int[] nodeCell, clusterFirst, matrixStart, intra, crossTo, crossCost;
+
+    // Scratch for searches within one cluster, indexed by position in the cluster:
+    // the codes of its cells, copied from the maze, and the cost to each cell and
+    // position it was reached from; a cell is a target of the current search if
+    // its mark is the current mark
+    private final byte[] localCode;
+    private final int[] localDist, localParent, localMark;
+    private final BucketQueue localFrontier;
+    private int mark;
+
+    // The cluster whose codes are in localCode, or -1, and its bounds
+    private int loaded = -1, top, left, height, width;
+
+    /**
+     * Constructs the abstract graph of the given problem.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param clusterSize The width and height of each cluster, in cells
+     */
+    HierarchicalSearch (MazeProblem problem, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Clusters must be at least 2 cells wide");
+        }
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.size = clusterSize;
+        this.clusterCols = (cols + size - 1) / size;
+        this.localCode = new byte[size * size];
+        this.localDist = new int[size * size];
+        this.localParent = new int[size * size];
+        this.localMark = new int[size * size];
+        this.localFrontier = new BucketQueue(size * size, MazeProblem.MUD_COST + 1);
+        build();
+    }
+
+    /**
+     * @return The width and height of each cluster, in cells
+     */
+    int getClusterSize () {
+        return size;
+    }
+
+    /**
+     * Finds the entrances across every border, numbers their nodes, and costs
+     * every pair of nodes in each cluster.
+     */
+    private void build () {
+        // The near and far cell of each entrance, across each vertical border,
+        // then each horizontal one
+        int[] pairs = new int[64];
+        int pairCount = 0;
+        for (int col = size - 1; col + 1 < cols; col += size) {
+            for (int top = 0; top < rows; top += size) {
+                pairs = pairs.length - pairCount < 2 * size ? Arrays.copyOf(pairs, pairs.length * 2 + 2 * size) : pairs;
+                pairCount = addEntrances(top * cols + col, 1, cols, Math.min(size, rows - top), pairs, pairCount);
+            }
+        }
+        for (int row = size - 1; row + 1 < rows; row += size) {
+            for (int left = 0; left < cols; left += size) {
+                pairs = pairs.length - pairCount < 2 * size ? Arrays.copyOf(pairs, pairs.length * 2 + 2 * size) : pairs;
+                pairCount = addEntrances(row * cols + left, cols, 1, Math.min(size, cols - left), pairs, pairCount);
+            }
+        }
+
+        // Number the nodes by cluster, then by cell, dropping cells on two entrances
+        long[] sorted = new long[pairCount];
+        for (int i = 0; i < pairCount; i++) {
+            sorted[i] = (long) cluster(pairs[i]) << 32 | pairs[i];
+        }
+        Arrays.sort(sorted);
+        int nodes = 0;
+        nodeCell = new int[pairCount];
+        for (int i = 0; i < pairCount; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                nodeCell[nodes++] = (int) sorted[i];
+            }
+        }
+        nodeCell = Arrays.copyOf(nodeCell, nodes);
+        int clusters = clusterCols * ((rows + size - 1) / size);
+        clusterFirst = new int[clusters + 1];
+        for (int node = 0; node < nodes; node++) {
+            clusterFirst[cluster(nodeCell[node]) + 1]++;
+        }
+        matrixStart = new int[clusters];
+        int entries = 0;
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            int count = clusterFirst[cluster + 1];
+            clusterFirst[cluster + 1] += clusterFirst[cluster];
+            matrixStart[cluster] = entries;
+            entries += count * count;
+        }
+
+        // Each cell is on at most one vertical and one horizontal border
+        crossTo = new int[2 * nodes];
+        crossCost = new int[2 * nodes];
+        Arrays.fill(crossTo, -1);
+        for (int i = 0; i < pairCount; i += 2) {
+            int a = node(pairs[i]), b = node(pairs[i + 1]);
+            addCrossing(a, b, problem.getCost(pairs[i + 1]));
+            addCrossing(b, a, problem.getCost(pairs[i]));
+        }
+
+        // Exact costs between every pair of nodes in each cluster. A path back
+        // enters the same cells but for its ends, so one search per pair suffices
+        intra = new int[entries];
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            int first = clusterFirst[cluster], count = clusterFirst[cluster + 1] - first;
+            for (int i = 0; i < count; i++) {
+                int from = nodeCell[first + i];
+                intra[matrixStart[cluster] + i * count + i] = 0;
+                searchCluster(from, false, nodeCell, first + i + 1, first + count);
+                for (int j = i + 1; j < count; j++) {
+                    int to = nodeCell[first + j], dist = localDist[local(to)];
+                    intra[matrixStart[cluster] + i * count + j] = dist;
+                    intra[matrixStart[cluster] + j * count + i] =
+                        dist == INFINITY ? INFINITY : dist - problem.getCost(to) + problem.getCost(from);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds a path from the initial state through the key to the nearest goal,
+     * searching the abstract graph for each leg.
+     *
+     * @return A SearchResult, or null if there is no path, whose bound is only the
+     * cost of the path over the Manhattan distance through the key to the nearest
+     * goal: a true but loose ratio, not one that HPA* itself guarantees
+     */
+    SearchResult solve () {
+        return problem.INITIAL_STATE == null ? null : solve(problem.INITIAL_STATE);
+    }
+
+    /**
+     * Finds a path from the given state through the key to the nearest goal, as
+     * solve does from the initial state.
+     *
+     * @param start The MazeState (col, row) to start from
+     * @return A SearchResult, as in solve, or null if there is no path
+     */
+    synchronized SearchResult solve (MazeState start) {
+        if (problem.KEY_STATE == null || problem.GOAL_STATE.isEmpty()) {
+            return null;
+        }
+        int source = start.row * cols + start.col,
+            key    = problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        int[] goals = new int[problem.GOAL_STATE.size()];
+        int keyToGoal = INFINITY;
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = problem.GOAL_STATE.get(i).row * cols + problem.GOAL_STATE.get(i).col;
+            keyToGoal = Math.min(keyToGoal, manhattan(key, goals[i]));
+        }
+
+        ArrayList<String> solution = shortestPath(source, new int[] {key});
+        ArrayList<String> toGoal = solution == null ? null : shortestPath(key, goals);
+        if (toGoal == null) {
+            return null;
+        }
+        solution.addAll(toGoal);
+        int cost = problem.testSolution(start, solution)[1];
+        // The Manhattan distance through the key is only 0 when the start, key,
+        // and a goal share one cell, and then so is the cost
+        int lowerBound = manhattan(source, key) + keyToGoal;
+        return new SearchResult(solution, cost, lowerBound == 0 ? 1 : (double) cost / lowerBound);
+    }
+
+    /**
+     * Finds a path from the source cell to one of the target cells through the
+     * abstract graph, by A* under the Manhattan distance to the nearest target,
+     * connecting the source and targets to the nodes of their own clusters for
+     * the duration of the query.
+     *
+     * @param source Row-major index of the cell to start from
+     * @param targets Row-major indices of the cells that end the path
+     * @return An ArrayList of Strings representing the actions along the path, or
+     * null if no target can be reached
+     */
+    private ArrayList<String> shortestPath (int source, int[] targets) {
+        int nodes = nodeCell.length, sourceNode = nodes, sinkNode = nodes + 1;
+
+        // Cheapest cost from each node in a target's cluster to a target, and which
+        int[] sinkCost = new int[nodes], sinkTarget = new int[nodes];
+        Arrays.fill(sinkCost, INFINITY);
+        int direct = INFINITY, directTarget = -1;
+        for (int target : targets) {
+            // The search settles every node of the target's cluster, and the source
+            int cluster = cluster(target), count = clusterFirst[cluster + 1] - clusterFirst[cluster];
+            int[] ends = Arrays.copyOfRange(nodeCell, clusterFirst[cluster], clusterFirst[cluster] + count + 1);
+            ends[count] = cluster == cluster(source) ? source : target;
+            searchCluster(target, true, ends, 0, ends.length);
+            for (int node = clusterFirst[cluster]; node < clusterFirst[cluster + 1]; node++) {
+                int dist = localDist[local(nodeCell[node])];
+                if (dist < sinkCost[node]) {
+                    sinkCost[node] = dist;
+                    sinkTarget[node] = target;
+                }
+            }
+            if (cluster == cluster(source) && localDist[local(source)] < direct) {
+                direct = localDist[local(source)];
+                directTarget = target;
+            }
+        }
+        int sourceCluster = cluster(source);
+        searchCluster(source, false, nodeCell, clusterFirst[sourceCluster], clusterFirst[sourceCluster + 1]);
+        int[] sourceCost = new int[clusterFirst[sourceCluster + 1] - clusterFirst[sourceCluster]];
+        for (int i = 0; i < sourceCost.length; i++) {
+            sourceCost[i] = localDist[local(nodeCell[clusterFirst[sourceCluster] + i])];
+        }
+
+        // A* over the abstract graph, whose edges each cost at least the Manhattan
+        // distance they span, so the heuristic is consistent
+        int[] dist = new int[nodes + 2], parent = new int[nodes + 2];
+        Arrays.fill(dist, INFINITY);
+        IndexedMinHeap frontier = new IndexedMinHeap(nodes + 2);
+        dist[sourceNode] = 0;
+        parent[sourceNode] = -1;
+        frontier.push(sourceNode, 0);
+        while (!frontier.isEmpty()) {
+            int node = frontier.pop();
+            if (node == sinkNode) {
+                break;
+            }
+            if (node == sourceNode) {
+                for (int i = 0; i < sourceCost.length; i++) {
+                    relax(node, clusterFirst[sourceCluster] + i, sourceCost[i], dist, parent, frontier, targets);
+                }
+                relax(node, sinkNode, direct, dist, parent, frontier, targets);
+                continue;
+            }
+            int cluster = cluster(nodeCell[node]), first = clusterFirst[cluster],
+                count = clusterFirst[cluster + 1] - first, row = matrixStart[cluster] + (node - first) * count;
+            for (int j = 0; j < count; j++) {
+                relax(node, first + j, intra[row + j], dist, parent, frontier, targets);
+            }
+            for (int slot = 2 * node; slot < 2 * node + 2 && crossTo[slot] >= 0; slot++) {
+                relax(node, crossTo[slot], crossCost[slot], dist, parent, frontier, targets);
+            }
+            relax(node, sinkNode, sinkCost[node], dist, parent, frontier, targets);
+        }
+        if (dist[sinkNode] == INFINITY) {
+            return null;
+        }
+
+        // Refine each abstract edge on the path into the cells it stands for
+        ArrayList<Integer> path = new ArrayList<>();
+        path.add(parent[sinkNode] == sourceNode ? directTarget : sinkTarget[parent[sinkNode]]);
+        for (int node = parent[sinkNode]; node != sourceNode; node = parent[node]) {
+            path.add(nodeCell[node]);
+        }
+        path.add(source);
+        Collections.reverse(path);
+        ArrayList<String> solution = new ArrayList<String>();
+        for (int i = 0; i + 1 < path.size(); i++) {
+            refine(path.get(i), path.get(i + 1), solution);
+        }
+        return solution;
+    }
+
+    /**
+     * Lowers the cost of reaching the given node through the given edge, if the
+     * edge exists and is cheaper, and queues the node by cost plus heuristic.
+     */
+    private void relax (int node, int next, int cost, int[] dist, int[] parent,
+                        IndexedMinHeap frontier, int[] targets) {
+        if (cost == INFINITY || dist[node] + cost >= dist[next]) {
+            return;
+        }
+        boolean queued = frontier.contains(next);
+        if (!queued && dist[next] != INFINITY) {
+            return;
+        }
+        dist[next] = dist[node] + cost;
+        parent[next] = node;
+        long key = (long) dist[next] + (next < nodeCell.length ? estimate(nodeCell[next], targets) : 0);
+        if (queued) {
+            frontier.decreaseKey(next, key);
+        } else {
+            frontier.push(next, key);
+        }
+    }
+
+    /**
+     * @return The Manhattan distance from the cell to the nearest target, or 0 if
+     * there are too many targets to scan
+     */
+    private int estimate (int cell, int[] targets) {
+        if (targets.length > SCAN_TARGETS) {
+            return 0;
+        }
+        int best = INFINITY;
+        for (int target : targets) {
+            best = Math.min(best, manhattan(cell, target));
+        }
+        return best;
+    }
+
+    /**
+     * Appends the near and far cell of an entrance for every run of open cell
+     * pairs along one side of a border between two clusters.
+     *
+     * @param first Row-major index of the first cell on the near side of the border
+     * @param across Offset from a near cell to its far neighbour
+     * @param along Offset from one near cell to the next along the border
+     * @param length Number of cells along this side of the border
+     * @param pairs The cells of the entrances found so far, with room for 2 * length more
+     * @param count The number of cells in pairs
+     * @return The number of cells in pairs, with the new entrances
+     */
+    private int addEntrances (int first, int across, int along, int length, int[] pairs, int count) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int cell = first + i * along;
+            boolean open = i < length && problem.getCell(cell) != MazeProblem.WALL &&
+                           problem.getCell(cell + across) != MazeProblem.WALL;
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runLength = i - runStart;
+                int[] ends = runLength < LONG_ENTRANCE ? new int[] {runStart + runLength / 2} : new int[] {runStart, i - 1};
+                for (int end : ends) {
+                    pairs[count++] = first + end * along;
+                    pairs[count++] = first + end * along + across;
+                }
+                runStart = -1;
+            }
+        }
+        return count;
+    }
+
+    private void addCrossing (int from, int to, int cost) {
+        int slot = crossTo[2 * from] < 0 ? 2 * from : 2 * from + 1;
+        crossTo[slot] = to;
+        crossCost[slot] = cost;
+    }
+
+    /**
+     * @return The abstract node at the given cell, which must have one
+     */
+    private int node (int cell) {
+        int cluster = cluster(cell);
+        return Arrays.binarySearch(nodeCell, clusterFirst[cluster], clusterFirst[cluster + 1], cell);
+    }
+
+    /**
+     * Appends the actions of an optimal path from one cell to another, which are
+     * either in the same cluster or adjacent across a border.
+     */
+    private void refine (int from, int to, ArrayList<String> solution) {
+        if (cluster(from) != cluster(to)) {
+            solution.add(action(from, to));
+            return;
+        }
+        searchCluster(from, false, new int[] {to}, 0, 1);
+        ArrayList<String> segment = new ArrayList<String>();
+        for (int cell = to; cell != from; cell = global(localParent[local(cell)])) {
+            segment.add(action(global(localParent[local(cell)]), cell));
+        }
+        Collections.reverse(segment);
+        solution.addAll(segment);
+    }
+
+    /**
+     * Runs Dijkstra from the given cell without leaving its cluster, filling
+     * localDist and localParent, until every given target cell in the cluster
+     * has been settled. A reverse search gives the cost from each cell to the
+     * source rather than from the source to each cell.
+     *
+     * @param source Row-major index of the cell to search from
+     * @param reverse Boolean of whether or not to search backward
+     * @param cells Row-major indices of cells in the source's cluster
+     * @param from The first of cells that the search must settle
+     * @param to One past the last of cells that the search must settle
+     */
+    private void searchCluster (int source, boolean reverse, int[] cells, int from, int to) {
+        load(cluster(source));
+        mark++;
+        int targets = 0;
+        for (int i = from; i < to; i++) {
+            if (localMark[local(cells[i])] != mark) {
+                localMark[local(cells[i])] = mark;
+                targets++;
+            }
+        }
+        Arrays.fill(localDist, INFINITY);
+        localFrontier.clear();
+        localDist[local(source)] = 0;
+        localParent[local(source)] = -1;
+        localFrontier.push(local(source), 0);
+        while (targets > 0 && !localFrontier.isEmpty()) {
+            int at = localFrontier.pop(), row = at / size, col = at % size;
+            if (localMark[at] == mark) {
+                targets--;
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                int nextAt = dir == 0 ? (row > 0 ? at - size : -1)
+                           : dir == 1 ? (row < height - 1 ? at + size : -1)
+                           : dir == 2 ? (col > 0 ? at - 1 : -1)
+                           : (col < width - 1 ? at + 1 : -1);
+                if (nextAt < 0 || localCode[nextAt] == MazeProblem.WALL) {
+                    continue;
+                }
+                int dist = localDist[at] + (localCode[reverse ? at : nextAt] == MazeProblem.MUD ? MazeProblem.MUD_COST : 1);
+                if (dist < localDist[nextAt]) {
+                    if (localFrontier.contains(nextAt)) {
+                        localFrontier.decreaseKey(nextAt, dist);
+                    } else {
+                        localFrontier.push(nextAt, dist);
+                    }
+                    localDist[nextAt] = dist;
+                    localParent[nextAt] = at;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the codes of the cells of the given cluster into localCode, unless
+     * they are there already.
+     */
+    private void load (int cluster) {
+        if (cluster == loaded) {
+            return;
+        }
+        loaded = cluster;
+        top = cluster / clusterCols * size;
+        left = cluster % clusterCols * size;
+        height = Math.min(size, rows - top);
+        width = Math.min(size, cols - left);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                localCode[row * size + col] = (byte) problem.getCell((top + row) * cols + left + col);
+            }
+        }
+    }
+
+    /**
+     * @return The row-major index of the cell at the given position in the
+     * cluster last loaded
+     */
+    private int global (int at) {
+        return (top + at / size) * cols + left + at % size;
+    }
+
+    private int cluster (int cell) {
+        return cell / cols / size * clusterCols + cell % cols / size;
+    }
+
+    /**
+     * @return The position of the given cell within its cluster
+     */
+    private int local (int cell) {
+        return cell / cols % size * size + cell % cols % size;
+    }
+
+    private int manhattan (int a, int b) {
+        return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+    }
+
+    private String action (int from, int to) {
+        int diff = to - from;
+        return MazeProblem.ACTIONS[diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3];
+    }
+}
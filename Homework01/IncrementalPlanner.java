@@ -0,0 +1,349 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Plans paths for an agent moving through a MazeProblem whose walls and mud change
+ * as it goes, with D* Lite over the (cell, keyObtained) states. The search runs
+ * backward, from every goal toward the agent, so the tree it leaves behind stays
+ * valid as the agent moves; when cells change, only the states whose cost-to-goal
+ * the change affects are searched again, instead of solving from scratch.<br>
+ * Each state is identified by cell * 2 + keyObtained, as in the int-encoded search.
+ */
+public class IncrementalPlanner {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final MazeProblem problem;
+    private final int cols, key;
+    private final int[] g, rhs;
+    private final IndexedMinHeap frontier;
+
+    // Scratch space for listing the states around one state
+    private final int[] successors = new int[4], predecessors = new int[8], neighbours = new int[4];
+
+    // The agent's state, the state it was in when the keys were last brought up
+    // to date, and the sum of the heuristic distances it has moved between those
+    // updates, which keeps the keys already queued valid as the agent moves
+    private int start, last, offset;
+
+    /**
+     * Constructs a new IncrementalPlanner for an agent at the initial state of the
+     * given problem.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @throws IllegalArgumentException If the maze has no initial state, or more
+     * than one key
+     */
+    public IncrementalPlanner (MazeProblem problem) {
+        if (problem.INITIAL_STATE == null) {
+            throw new IllegalArgumentException("Maze has no initial state");
+        }
+        if (problem.KEY_STATES.size() > 1) {
+            throw new IllegalArgumentException("Maze has more than one key");
+        }
+        this.problem = problem;
+        this.cols = problem.getCols();
+        this.key = problem.KEY_STATE == null ? -1 : problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        int states = problem.getRows() * cols * 2;
+        this.g = new int[states];
+        this.rhs = new int[states];
+        this.frontier = new IndexedMinHeap(states);
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+
+        int cell = problem.INITIAL_STATE.row * cols + problem.INITIAL_STATE.col;
+        start = last = cell * 2 + (cell == key ? 1 : 0);
+        for (MazeState goal : problem.GOAL_STATE) {
+            int state = (goal.row * cols + goal.col) * 2 + 1;
+            rhs[state] = 0;
+            frontier.push(state, calculateKey(state));
+        }
+    }
+
+    /**
+     * @return The MazeState (col, row) the agent is at
+     */
+    public MazeState getPosition () {
+        return new MazeState((start >>> 1) % cols, (start >>> 1) / cols);
+    }
+
+    /**
+     * @return Boolean of whether or not the agent has obtained the key
+     */
+    public boolean hasKey () {
+        return (start & 1) == 1;
+    }
+
+    /**
+     * Finds an optimal path from the agent's state through the key to any goal,
+     * repairing the search tree left by the last call where cells have changed.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the agent's
+     * state to the goal state, of the format: ["R", "R", "L", ...], or null if there is
+     * none
+     */
+    public ArrayList<String> plan () {
+        catchUp();
+        computeShortestPath();
+        if (rhs[start] == INFINITY) {
+            return null;
+        }
+
+        // Every state on an optimal path is now consistent, so the path descends
+        // through the successor with the least cost plus cost-to-goal at each step
+        ArrayList<String> solution = new ArrayList<String>();
+        for (int state = start; rhs[state] > 0; ) {
+            int best = -1;
+            long bestCost = INFINITY;
+            for (int i = 0, count = listSuccessors(state); i < count; i++) {
+                int next = successors[i];
+                if (g[next] != INFINITY && (long) cost(next) + g[next] < bestCost) {
+                    bestCost = (long) cost(next) + g[next];
+                    best = next;
+                }
+            }
+            solution.add(action(state >>> 1, best >>> 1));
+            state = best;
+        }
+        return solution;
+    }
+
+    /**
+     * Moves the agent one step, e.g., after taking the first action of a plan.
+     *
+     * @param action One of "U", "D", "L", or "R"
+     * @throws IllegalArgumentException If the action is unknown, or leads out of the
+     * maze or into a wall
+     */
+    public void move (String action) {
+        int dir = Arrays.asList(MazeProblem.ACTIONS).indexOf(action);
+        int cell = start >>> 1, col = cell % cols, row = cell / cols;
+        int nCol = col + (dir == 2 ? -1 : dir == 3 ? 1 : 0),
+            nRow = row + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+        if (dir < 0 || !problem.inBounds(nCol, nRow) || problem.getCell(nRow * cols + nCol) == MazeProblem.WALL) {
+            throw new IllegalArgumentException("Cannot move " + action + " from " + getPosition());
+        }
+        int next = nRow * cols + nCol;
+        start = next * 2 + (next == key ? 1 : start & 1);
+    }
+
+    /**
+     * Changes a cell of the maze, as in MazeProblem.setCell, and updates the
+     * cost-to-goal of the states around it; the search itself is repaired on the
+     * next call to plan.
+     *
+     * @param state The MazeState (col, row) of the cell to change
+     * @param c The new contents of the cell: 'X', '.', or 'M'
+     */
+    public void setCell (MazeState state, char c) {
+        int cell = state.row * cols + state.col;
+        int old = problem.inBounds(state.col, state.row) ? problem.getCell(cell) : -1;
+        problem.setCell(state, c);
+        if (problem.getCell(cell) == old) {
+            return;
+        }
+        catchUp();
+
+        // The edges whose costs changed are those onto the cell, and those off of
+        // it if it became or stopped being a wall; their source states are the
+        // cell's own and its neighbours'
+        for (int dir = -1; dir < 4; dir++) {
+            int nCol = state.col + (dir == 2 ? -1 : dir == 3 ? 1 : 0),
+                nRow = state.row + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+            if (!problem.inBounds(nCol, nRow)) {
+                continue;
+            }
+            for (int hasKey = 0; hasKey < 2; hasKey++) {
+                int source = (nRow * cols + nCol) * 2 + hasKey;
+                if (source != key * 2) {
+                    updateRhs(source);
+                    updateVertex(source);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accounts for the agent's moves since the keys in the frontier were computed:
+     * every key is at most the heuristic distance moved too large, so adding that
+     * to keys computed from now on keeps the order among them.
+     */
+    private void catchUp () {
+        offset += heuristic(last, start);
+        last = start;
+    }
+
+    /**
+     * Expands inconsistent states, in order of their keys, until the agent's state
+     * is consistent and no state queued could yet lower its cost-to-goal.
+     */
+    private void computeShortestPath () {
+        while (!frontier.isEmpty() &&
+               (frontier.getKey(frontier.peek()) < calculateKey(start) || rhs[start] > g[start])) {
+            int state = frontier.peek();
+            long oldKey = frontier.getKey(state), newKey = calculateKey(state);
+            if (oldKey < newKey) {
+                frontier.update(state, newKey);
+            } else if (g[state] > rhs[state]) {
+                g[state] = rhs[state];
+                frontier.remove(state);
+                int stepCost = cost(state);
+                for (int i = 0, count = listPredecessors(state); i < count; i++) {
+                    int prev = predecessors[i];
+                    if (!isTerminal(prev) && g[state] + stepCost < rhs[prev]) {
+                        rhs[prev] = g[state] + stepCost;
+                        updateVertex(prev);
+                    }
+                }
+            } else {
+                int oldCost = g[state] == INFINITY ? INFINITY : g[state] + cost(state);
+                g[state] = INFINITY;
+                for (int i = 0, count = listPredecessors(state); i < count; i++) {
+                    int prev = predecessors[i];
+                    if (rhs[prev] == oldCost) {
+                        updateRhs(prev);
+                    }
+                    updateVertex(prev);
+                }
+                updateRhs(state);
+                updateVertex(state);
+            }
+        }
+    }
+
+    /**
+     * Queues the given state if it is inconsistent, with its key brought up to
+     * date, and unqueues it otherwise.
+     */
+    private void updateVertex (int state) {
+        if (g[state] != rhs[state]) {
+            if (frontier.contains(state)) {
+                frontier.update(state, calculateKey(state));
+            } else {
+                frontier.push(state, calculateKey(state));
+            }
+        } else if (frontier.contains(state)) {
+            frontier.remove(state);
+        }
+    }
+
+    /**
+     * Sets the one-step lookahead cost-to-goal of a state from its successors' costs.
+     */
+    private void updateRhs (int state) {
+        if (isTerminal(state)) {
+            return;
+        }
+        int best = INFINITY;
+        for (int i = 0, count = listSuccessors(state); i < count; i++) {
+            int next = successors[i];
+            if (g[next] != INFINITY) {
+                best = Math.min(best, g[next] + cost(next));
+            }
+        }
+        rhs[state] = best;
+    }
+
+    /**
+     * @return The key of a state: its smaller cost-to-goal plus its heuristic
+     * distance from the agent in the high half, for ordering, and the cost-to-goal
+     * alone in the low half, for breaking ties
+     */
+    private long calculateKey (int state) {
+        int least = Math.min(g[state], rhs[state]);
+        if (least == INFINITY) {
+            return Long.MAX_VALUE;
+        }
+        return ((long) (least + heuristic(start, state) + offset) << 32) | least;
+    }
+
+    /**
+     * @return A consistent lower bound on the cost from one state to another:
+     * the Manhattan distance, by way of the key if it has yet to be obtained.
+     * States without the key cannot be reached from states with it, and are
+     * given a bound of 0
+     */
+    private int heuristic (int from, int to) {
+        int fromCell = from >>> 1, toCell = to >>> 1;
+        if ((from & 1) == (to & 1)) {
+            return manhattan(fromCell, toCell);
+        }
+        return (from & 1) == 0 && key >= 0 ? manhattan(fromCell, key) + manhattan(key, toCell) : 0;
+    }
+
+    private int manhattan (int from, int to) {
+        return Math.abs(from % cols - to % cols) + Math.abs(from / cols - to / cols);
+    }
+
+    /**
+     * @return Boolean of whether or not the state is a goal reached with the key
+     */
+    private boolean isTerminal (int state) {
+        return (state & 1) == 1 && problem.getCell(state >>> 1) == MazeProblem.GOAL;
+    }
+
+    /**
+     * @return The cost of moving onto the cell of the given state
+     */
+    private int cost (int state) {
+        return problem.getCost(state >>> 1);
+    }
+
+    /**
+     * Lists, in successors, the states reachable in one step from the given state.
+     *
+     * @return The number of states listed
+     */
+    private int listSuccessors (int state) {
+        int cell = state >>> 1, count = 0;
+        if (problem.getCell(cell) == MazeProblem.WALL) {
+            return 0;
+        }
+        problem.getNeighbours(cell, neighbours);
+        for (int dir = 0; dir < 4; dir++) {
+            int next = neighbours[dir];
+            if (next >= 0) {
+                successors[count++] = next * 2 + (next == key ? 1 : state & 1);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Lists, in predecessors, the states from which the given state is reachable in
+     * one step. Moving onto the key obtains it, so the key's state with it is
+     * reached both with and without it, and its state without it is never reached.
+     *
+     * @return The number of states listed
+     */
+    private int listPredecessors (int state) {
+        int cell = state >>> 1, count = 0;
+        if (problem.getCell(cell) == MazeProblem.WALL || state == key * 2) {
+            return 0;
+        }
+        problem.getNeighbours(cell, neighbours);
+        for (int dir = 0; dir < 4; dir++) {
+            int prev = neighbours[dir];
+            if (prev < 0) {
+                continue;
+            }
+            if (cell == key) {
+                predecessors[count++] = prev * 2;
+                predecessors[count++] = prev * 2 + 1;
+            } else if (prev != key || (state & 1) == 1) {
+                predecessors[count++] = prev * 2 + (state & 1);
+            }
+        }
+        return count;
+    }
+
+    private String action (int from, int to) {
+        int diff = to - from;
+        return MazeProblem.ACTIONS[diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3];
+    }
+}
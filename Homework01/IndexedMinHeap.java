@@ -0,0 +1,196 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over the items 0 .. capacity-1, each held at most once and
+ * ordered by a long key. The position of every item in the heap is tracked so
+ * that its key can be lowered in place instead of pushing a duplicate entry.
+ */
+class IndexedMinHeap implements CellQueue {
+
+    private final int[] heap, position;
+    private final long[] keys;
+    private int size;
+
+    /**
+     * Constructs a new, empty IndexedMinHeap.
+     *
+     * @param capacity One more than the largest item that will be pushed
+     */
+    IndexedMinHeap (int capacity) {
+        heap = new int[capacity];
+        keys = new long[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * @return Boolean of whether or not the heap holds no items
+     */
+    @Override
+    public boolean isEmpty () {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of items in the heap
+     */
+    @Override
+    public int size () {
+        return size;
+    }
+
+    /**
+     * @param item The item to test
+     * @return Boolean of whether or not the item is currently in the heap
+     */
+    @Override
+    public boolean contains (int item) {
+        return position[item] >= 0;
+    }
+
+    /**
+     * @param item An item currently in the heap
+     * @return The key the item is ordered by
+     */
+    @Override
+    public long getKey (int item) {
+        return keys[item];
+    }
+
+    /**
+     * Adds the given item, which must not already be in the heap.
+     *
+     * @param item The item to add
+     * @param key The key to order the item by
+     */
+    @Override
+    public void push (int item, long key) {
+        keys[item] = key;
+        heap[size] = item;
+        position[item] = size;
+        siftUp(size++);
+    }
+
+    /**
+     * Lowers the key of an item already in the heap.
+     *
+     * @param item The item to update
+     * @param key The new key, no greater than its current key
+     */
+    @Override
+    public void decreaseKey (int item, long key) {
+        keys[item] = key;
+        siftUp(position[item]);
+    }
+
+    /**
+     * Changes the key of an item already in the heap, raising or lowering it.
+     *
+     * @param item The item to update
+     * @param key The new key
+     */
+    void update (int item, long key) {
+        long old = keys[item];
+        keys[item] = key;
+        if (key < old) {
+            siftUp(position[item]);
+        } else {
+            siftDown(position[item]);
+        }
+    }
+
+    /**
+     * Removes the given item, which must be in the heap.
+     *
+     * @param item The item to remove
+     */
+    void remove (int item) {
+        int i = position[item];
+        position[item] = -1;
+        if (--size > i) {
+            int moved = heap[size];
+            heap[i] = moved;
+            position[moved] = i;
+            siftDown(i);
+            siftUp(position[moved]);
+        }
+    }
+
+    /**
+     * @return The item with the smallest key, without removing it
+     */
+    int peek () {
+        return heap[0];
+    }
+
+    /**
+     * Removes and returns the item with the smallest key.
+     *
+     * @return The removed item
+     */
+    @Override
+    public int pop () {
+        int top = heap[0];
+        position[top] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Removes every item; runs in time proportional to the current size.
+     */
+    @Override
+    public void clear () {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp (int i) {
+        int item = heap[i];
+        long key = keys[item];
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (keys[heap[up]] <= key) {
+                break;
+            }
+            heap[i] = heap[up];
+            position[heap[i]] = i;
+            i = up;
+        }
+        heap[i] = item;
+        position[item] = i;
+    }
+
+    private void siftDown (int i) {
+        int item = heap[i];
+        long key = keys[item];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[heap[child]] >= key) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = item;
+        position[item] = i;
+    }
+}
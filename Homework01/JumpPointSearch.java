@@ -0,0 +1,245 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Jump Point Search over the (cell, keyObtained) states of a MazeProblem, for
+ * 4-connected grids. Across uniform-cost floor, A* only expands the cells where
+ * a path may need to turn, and jumps straight over everything in between.
+ * Cells that are mud, next to mud, the key, or a goal are never jumped over;
+ * they become jump points and are expanded in all four directions, as in the
+ * ordinary search. The jump from every cell in every direction is computed
+ * up front, at a cost of four ints per cell.
+ */
+class JumpPointSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final MazeProblem problem;
+    private final int rows, cols, key;
+    private final int[] gCost, parent, jumps;
+    private final BitSet closed, uniform;
+    private final IndexedMinHeap frontier;
+
+    /**
+     * Constructs a new JumpPointSearch, sizing its scratch arrays to the given problem.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     */
+    JumpPointSearch (MazeProblem problem) {
+        this.problem = problem;
+        this.rows = problem.getRows();
+        this.cols = problem.getCols();
+        this.key = problem.KEY_STATE == null ? -1 : problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        int states = rows * cols * 2;
+        this.gCost = new int[states];
+        this.parent = new int[states];
+        this.closed = new BitSet(states);
+        this.frontier = new IndexedMinHeap(states);
+        this.uniform = new BitSet(rows * cols);
+        for (int cell = 0; cell < rows * cols; cell++) {
+            uniform.set(cell, isUniform(cell));
+        }
+        this.jumps = new int[rows * cols * 4];
+        buildJumps();
+    }
+
+    /**
+     * Finds an optimal path from the initial state through the key to any goal.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    ArrayList<String> solve () {
+        KeyGoalHeuristic heuristic = KeyGoalHeuristic.create(problem);
+        if (problem.INITIAL_STATE == null || heuristic == null) {
+            return null;
+        }
+        int start = (problem.INITIAL_STATE.row * cols + problem.INITIAL_STATE.col) * 2;
+        Arrays.fill(gCost, INFINITY);
+        closed.clear();
+        frontier.clear();
+        gCost[start] = 0;
+        parent[start] = -1;
+        frontier.push(start, priority(0, heuristic.estimate(start >>> 1, false)));
+
+        while (!frontier.isEmpty()) {
+            int state = frontier.pop(), cell = state >>> 1, hasKey = state & 1;
+            closed.set(state);
+            if (hasKey == 1 && problem.getCell(cell) == MazeProblem.GOAL) {
+                return getSolution(state);
+            }
+
+            // Only the natural neighbours of the direction of travel need to be
+            // searched from a jump point in uniform floor; anywhere else, all four
+            int travel = parent[state] < 0 || !uniform.get(cell) ? -1 : direction(parent[state] >>> 1, cell);
+            for (int dir = 0; dir < 4; dir++) {
+                if (travel >= 0 && travel >= 2 == dir >= 2 && dir != travel) {
+                    continue;
+                }
+                int jumpCell = jumps[cell * 4 + dir];
+                if (jumpCell < 0) {
+                    continue;
+                }
+                int next = jumpCell * 2 + (jumpCell == key ? 1 : hasKey);
+                if (closed.get(next)) {
+                    continue;
+                }
+                // Every cell jumped over is uniform floor of cost 1
+                int g = gCost[state] + distance(cell, jumpCell) - 1 + problem.getCost(jumpCell);
+                if (g < gCost[next]) {
+                    if (frontier.contains(next)) {
+                        frontier.decreaseKey(next, frontier.getKey(next) - ((long) (gCost[next] - g) << 32));
+                    } else {
+                        frontier.push(next, priority(g, heuristic.estimate(jumpCell, (next & 1) == 1)));
+                    }
+                    gCost[next] = g;
+                    parent[next] = state;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The frontier key for a state with the given g and h: ordered by f,
+     * with ties going to the state nearer the goal. On open floor, many jump
+     * points share the optimal f, and this expands them along a single line
+     * instead of across the whole region.
+     */
+    private static long priority (int g, int h) {
+        return ((long) (g + h) << 32) | h;
+    }
+
+    /**
+     * Fills the jump table, where jumps[cell * 4 + dir] is the jump point reached
+     * by moving from the cell in the given direction, or -1 if a wall comes first.
+     * Moving left or right stops at a cell that is not uniform floor, or one with
+     * a forced neighbour above or below; moving up or down also stops at a cell
+     * with a forced neighbour to either side, or from which a horizontal jump
+     * reaches a jump point. Each row and column is swept once, against the
+     * direction of travel, so the table takes linear time to build.
+     */
+    private void buildJumps () {
+        for (int row = 0; row < rows; row++) {
+            for (int col = cols - 1; col >= 0; col--) {
+                jumps[(row * cols + col) * 4 + 3] = jumpTarget(col + 1, row, col, row, 3);
+            }
+            for (int col = 0; col < cols; col++) {
+                jumps[(row * cols + col) * 4 + 2] = jumpTarget(col - 1, row, col, row, 2);
+            }
+        }
+        for (int col = 0; col < cols; col++) {
+            for (int row = rows - 1; row >= 0; row--) {
+                jumps[(row * cols + col) * 4 + 1] = jumpTarget(col, row + 1, col, row, 1);
+            }
+            for (int row = 0; row < rows; row++) {
+                jumps[(row * cols + col) * 4] = jumpTarget(col, row - 1, col, row, 0);
+            }
+        }
+    }
+
+    /**
+     * @return The jump table entry for moving from (fromCol, fromRow) onto the
+     * adjacent (col, row) in the given direction, given that the entry for
+     * (col, row) itself is already filled
+     */
+    private int jumpTarget (int col, int row, int fromCol, int fromRow, int dir) {
+        if (!isOpen(col, row)) {
+            return -1;
+        }
+        int at = row * cols + col;
+        if (!uniform.get(at)) {
+            return at;
+        }
+        if (dir >= 2) {
+            if ((isOpen(col, row - 1) && !isFloor(fromCol, row - 1)) ||
+                (isOpen(col, row + 1) && !isFloor(fromCol, row + 1))) {
+                return at;
+            }
+        } else {
+            if ((isOpen(col - 1, row) && !isFloor(col - 1, fromRow)) ||
+                (isOpen(col + 1, row) && !isFloor(col + 1, fromRow)) ||
+                jumps[at * 4 + 2] >= 0 || jumps[at * 4 + 3] >= 0) {
+                return at;
+            }
+        }
+        return jumps[at * 4 + dir];
+    }
+
+    /**
+     * @return Boolean of whether or not (col, row) is within the maze and not a wall
+     */
+    private boolean isOpen (int col, int row) {
+        return problem.inBounds(col, row) && problem.getCell(row * cols + col) != MazeProblem.WALL;
+    }
+
+    /**
+     * @return Boolean of whether or not the given cell is plain floor that is
+     * neither the key nor next to mud, and so may be jumped over
+     */
+    private boolean isUniform (int cell) {
+        if (cell == key || problem.getCell(cell) != MazeProblem.OPEN) {
+            return false;
+        }
+        int col = cell % cols, row = cell / cols;
+        return !isMud(col, row - 1) && !isMud(col, row + 1) && !isMud(col - 1, row) && !isMud(col + 1, row);
+    }
+
+    /**
+     * @return Boolean of whether or not (col, row) is within the maze and costs 1
+     * to move onto; a neighbour is forced whenever the cell diagonally behind it
+     * is not, since the path around it is then no longer just as cheap
+     */
+    private boolean isFloor (int col, int row) {
+        return isOpen(col, row) && problem.getCell(row * cols + col) != MazeProblem.MUD;
+    }
+
+    private boolean isMud (int col, int row) {
+        return problem.inBounds(col, row) && problem.getCell(row * cols + col) == MazeProblem.MUD;
+    }
+
+    /**
+     * @return The direction code of travel from one cell to another in the same
+     * row or column
+     */
+    private int direction (int from, int to) {
+        if (from / cols == to / cols) {
+            return to > from ? 3 : 2;
+        }
+        return to > from ? 1 : 0;
+    }
+
+    /**
+     * @return The number of steps between two cells in the same row or column
+     */
+    private int distance (int from, int to) {
+        return from / cols == to / cols ? Math.abs(to - from) : Math.abs(to - from) / cols;
+    }
+
+    /**
+     * Gets the path taken to reach the given state, expanding each jump into its
+     * individual steps, from earliest to most recent.
+     */
+    private ArrayList<String> getSolution (int end) {
+        int length = 0;
+        for (int state = end; parent[state] >= 0; state = parent[state]) {
+            length += distance(parent[state] >>> 1, state >>> 1);
+        }
+        String[] actions = new String[length];
+        int i = length;
+        for (int state = end; parent[state] >= 0; state = parent[state]) {
+            int from = parent[state] >>> 1, to = state >>> 1;
+            String action = MazeProblem.ACTIONS[direction(from, to)];
+            for (int step = distance(from, to); step > 0; step--) {
+                actions[--i] = action;
+            }
+        }
+        return new ArrayList<String>(Arrays.asList(actions));
+    }
+}
@@ -0,0 +1,184 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Heuristic over (cell, keyObtained) states of a MazeProblem. Before the key,
+ * the estimate is the Manhattan distance to the key plus the exact cost from
+ * the key to its nearest goal, which is computed once by a uniform-cost
+ * search out of the key. After the key, it is the larger of the Manhattan
+ * distance to the nearest goal, which the problem keeps (see NearestGoal),
+ * and the exact cost remaining along any path out of the key, which agrees
+ * with the first estimate at the key itself and so keeps the heuristic
+ * consistent across the pickup. If the problem has
+ * precomputed landmarks, the landmark bounds to the key and to the goals are
+ * taken in place of the Manhattan distances wherever they are larger, and the
+ * search out of the key, which on a maze may settle most of its cells, is
+ * skipped: the cost from the key to its nearest goal is then only bounded,
+ * by the same estimate made after the key at the key itself.
+ */
+class KeyGoalHeuristic {
+
+    private final int cols, keyCol, keyRow, keyToGoal;
+    private final NearestGoal nearestGoal;
+
+    // keyToGoal - (cost from the key to the cell) for every cell settled before
+    // the key's nearest goal, and 0 for every other cell; null with landmarks
+    private final int[] keyBound;
+
+    // Landmark bounds to the key and to the nearest goal, or null if the problem
+    // has no landmarks
+    private final Landmarks.Target toKey, toGoal;
+
+    private KeyGoalHeuristic (MazeProblem problem, int keyToGoal, int[] keyBound) {
+        this.cols = problem.getCols();
+        this.keyCol = problem.KEY_STATE.col;
+        this.keyRow = problem.KEY_STATE.row;
+        this.keyBound = keyBound;
+        this.nearestGoal = problem.getNearestGoal();
+        Landmarks landmarks = problem.getLandmarks();
+        if (landmarks == null) {
+            this.toKey = null;
+            this.toGoal = null;
+        } else {
+            int[] goals = new int[problem.GOAL_STATE.size()];
+            for (int i = 0; i < goals.length; i++) {
+                goals[i] = problem.GOAL_STATE.get(i).row * cols + problem.GOAL_STATE.get(i).col;
+            }
+            this.toKey = landmarks.target(new int[] {keyRow * cols + keyCol});
+            this.toGoal = landmarks.target(goals);
+        }
+        this.keyToGoal = keyBound == null ? estimate(keyRow * cols + keyCol, true) : keyToGoal;
+    }
+
+    /**
+     * Computes the heuristic for the given problem.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return The heuristic, or null if the maze has no key or no goal can be
+     * reached from the key, in which case the problem has no solution
+     */
+    static KeyGoalHeuristic create (MazeProblem problem) {
+        return create(problem, new Scratch());
+    }
+
+    /**
+     * Computes the heuristic for the given problem with the given scratch arrays,
+     * which the heuristic keeps; it is only valid until they are next used.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param scratch The arrays to search out of the key with
+     * @return The heuristic, or null if the maze has no key or no goal can be
+     * reached from the key, in which case the problem has no solution
+     */
+    static KeyGoalHeuristic create (MazeProblem problem, Scratch scratch) {
+        if (problem.KEY_STATE == null || problem.GOAL_STATE.isEmpty()) {
+            return null;
+        }
+        if (problem.getLandmarks() != null) {
+            return new KeyGoalHeuristic(problem, 0, null);
+        }
+        int cols = problem.getCols();
+        int key = problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        scratch.reset(problem.getRows() * cols);
+        int[] dist = scratch.dist, settled = scratch.settled, neighbours = scratch.neighbours;
+        int settledCount = 0;
+        IndexedMinHeap frontier = scratch.frontier;
+        dist[key] = 0;
+        frontier.push(key, 0);
+
+        while (!frontier.isEmpty()) {
+            int cell = frontier.pop();
+            if (problem.getCell(cell) == MazeProblem.GOAL) {
+                int[] keyBound = scratch.keyBound;
+                for (int i = 0; i < settledCount; i++) {
+                    keyBound[settled[i]] = dist[cell] - dist[settled[i]];
+                }
+                return new KeyGoalHeuristic(problem, dist[cell], keyBound);
+            }
+            settled[settledCount++] = cell;
+
+            problem.getNeighbours(cell, neighbours);
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbours[dir];
+                if (next < 0) {
+                    continue;
+                }
+                int d = dist[cell] + problem.getCost(next);
+                if (d < dist[next]) {
+                    if (frontier.contains(next)) {
+                        frontier.decreaseKey(next, d);
+                    } else {
+                        frontier.push(next, d);
+                    }
+                    dist[next] = d;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The exact cost of the cheapest path from the key to any goal, or
+     * a lower bound on it if the problem has landmarks
+     */
+    int getKeyToGoal () {
+        return keyToGoal;
+    }
+
+    /**
+     * Returns a lower bound on the cost from the given state to a goal, having
+     * collected the key along the way.
+     *
+     * @param cell Row-major index of the current cell
+     * @param keyObtained Whether or not the key has already been collected
+     * @return int The estimated cost to the goal
+     */
+    int estimate (int cell, boolean keyObtained) {
+        int col = cell % cols, row = cell / cols;
+        if (!keyObtained) {
+            int toKeyBound = Math.abs(keyCol - col) + Math.abs(keyRow - row);
+            if (toKey != null) {
+                toKeyBound = Math.max(toKeyBound, toKey.estimate(cell));
+            }
+            return toKeyBound + keyToGoal;
+        }
+        int best = nearestGoal.distance(cell);
+        if (toGoal != null) {
+            best = Math.max(best, toGoal.estimate(cell));
+        }
+        return keyBound == null ? best : Math.max(best, keyBound[cell]);
+    }
+
+    /**
+     * Scratch arrays for the search out of the key, sized to the largest maze they
+     * have been used for, so that a caller solving many problems in turn, such as
+     * GridSearch, allocates them once rather than on every query.
+     */
+    static final class Scratch {
+
+        private int[] dist = new int[0], settled = new int[0], keyBound = new int[0];
+        private final int[] neighbours = new int[4];
+        private IndexedMinHeap frontier = new IndexedMinHeap(0);
+
+        /**
+         * Readies the arrays for a maze of the given number of cells, growing them
+         * if it is larger than any before it.
+         */
+        private void reset (int cells) {
+            if (cells > dist.length) {
+                dist = new int[cells];
+                settled = new int[cells];
+                keyBound = new int[cells];
+                frontier = new IndexedMinHeap(cells);
+            } else {
+                Arrays.fill(keyBound, 0, cells, 0);
+                frontier.clear();
+            }
+            Arrays.fill(dist, 0, cells, Integer.MAX_VALUE);
+        }
+    }
+}
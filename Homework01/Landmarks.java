@@ -0,0 +1,249 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Landmark (ALT) lower bounds on the cost between cells of a MazeProblem. For a
+ * handful of landmark cells, the exact cost from each landmark to every cell and
+ * from every cell to each landmark is stored; by the triangle inequality, for any
+ * landmark L, the cost from u to t is at least cost(u, L) - cost(t, L), and at
+ * least cost(L, t) - cost(L, u). Unlike the Manhattan distance, these bounds see
+ * walls and mud. Each landmark costs two ints per cell.
+ */
+class Landmarks {
+
+    // File format: the magic number "LMK1", the number of rows and columns, a
+    // hash of the cells the tables were computed over, the number of landmarks,
+    // and then, for each landmark, its cell and both of its tables, all as
+    // big-endian ints but for the hash, a long
+    private static final int MAGIC = 0x4C4D4B31;
+
+    private static final int UNREACHABLE = DistanceField.UNREACHABLE;
+
+    private final int[] cells;
+    private final int[][] from, to;
+
+    private Landmarks (int[] cells, int[][] from, int[][] to) {
+        this.cells = cells;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Picks landmarks by farthest-point selection: each one is the cell farthest
+     * from every landmark picked before it, starting from the cell farthest from
+     * the initial state, which spreads them around the edges of the maze where
+     * their bounds are tightest.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param count The number of landmarks to pick; fewer are picked if the maze
+     * runs out of cells that are not landmarks already
+     * @return The landmarks, with their tables computed
+     */
+    static Landmarks select (MazeProblem problem, int count) {
+        int total = problem.getRows() * problem.getCols();
+        int[] nearest = new int[total], cells = new int[count];
+        int[][] from = new int[count][], to = new int[count][];
+        int picked = 0, next = farthest(DistanceField.forward(problem, seed(problem)));
+
+        while (picked < count && next >= 0) {
+            cells[picked] = next;
+            from[picked] = DistanceField.forward(problem, next);
+            to[picked] = DistanceField.reverse(problem, new int[] {next});
+            for (int cell = 0; cell < total; cell++) {
+                nearest[cell] = picked == 0 ? from[0][cell] : Math.min(nearest[cell], from[picked][cell]);
+            }
+            picked++;
+            next = farthest(nearest);
+        }
+        return new Landmarks(Arrays.copyOf(cells, picked), Arrays.copyOf(from, picked), Arrays.copyOf(to, picked));
+    }
+
+    /**
+     * @return The initial cell, or the first cell that is not a wall if there is
+     * no initial state, or 0 if there is no such cell either
+     */
+    private static int seed (MazeProblem problem) {
+        if (problem.INITIAL_STATE != null) {
+            return problem.INITIAL_STATE.row * problem.getCols() + problem.INITIAL_STATE.col;
+        }
+        int total = problem.getRows() * problem.getCols();
+        for (int cell = 0; cell < total; cell++) {
+            if (problem.getCell(cell) != MazeProblem.WALL) {
+                return cell;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return The cell of greatest finite, nonzero distance, or -1 if there is none
+     */
+    private static int farthest (int[] dist) {
+        int best = -1;
+        for (int cell = 0; cell < dist.length; cell++) {
+            if (dist[cell] != UNREACHABLE && dist[cell] > 0 && (best < 0 || dist[cell] > dist[best])) {
+                best = cell;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return The number of landmarks
+     */
+    int size () {
+        return cells.length;
+    }
+
+    /**
+     * Prepares the bounds toward a fixed set of target cells, which depend on the
+     * targets only through two constants per landmark.
+     *
+     * @param targets Row-major indices of the cells to bound the cost to
+     * @return The bounds on the cost from any cell to the nearest of the targets
+     */
+    Target target (int[] targets) {
+        return new Target(targets);
+    }
+
+    /**
+     * ALT bounds on the cost from any cell to the nearest of a set of targets:
+     * the greatest over the landmarks of cost(u, L) less the most that any target
+     * costs to reach L, and of the least that L costs to reach any target less
+     * cost(L, u). Each is a consistent bound, and so is their maximum. Landmarks
+     * that cannot reach every target, or be reached from some target, give no
+     * bound and are dropped; a cell that cannot reach a landmark lies in another
+     * component from it, and so do all of the cell's neighbours.
+     */
+    class Target {
+
+        private final int[] landmarks, maxTo, minFrom;
+        private final int count;
+
+        private Target (int[] targets) {
+            landmarks = new int[cells.length];
+            maxTo = new int[cells.length];
+            minFrom = new int[cells.length];
+            int used = 0;
+            for (int i = 0; i < cells.length; i++) {
+                int most = 0, least = UNREACHABLE;
+                for (int target : targets) {
+                    most = to[i][target] == UNREACHABLE || most == UNREACHABLE ? UNREACHABLE : Math.max(most, to[i][target]);
+                    least = Math.min(least, from[i][target]);
+                }
+                if (targets.length > 0 && (most != UNREACHABLE || least != UNREACHABLE)) {
+                    landmarks[used] = i;
+                    maxTo[used] = most;
+                    minFrom[used] = least;
+                    used++;
+                }
+            }
+            count = used;
+        }
+
+        /**
+         * @param cell Row-major index of a cell
+         * @return A lower bound on the cost from the cell to the nearest target,
+         * at least 0
+         */
+        int estimate (int cell) {
+            int best = 0;
+            for (int j = 0; j < count; j++) {
+                int i = landmarks[j];
+                int toLandmark = to[i][cell], fromLandmark = from[i][cell];
+                if (maxTo[j] != UNREACHABLE && toLandmark != UNREACHABLE) {
+                    best = Math.max(best, toLandmark - maxTo[j]);
+                }
+                if (minFrom[j] != UNREACHABLE && fromLandmark != UNREACHABLE) {
+                    best = Math.max(best, minFrom[j] - fromLandmark);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * @return A hash of the cells of the maze, to tell whether stored landmark
+     * tables were computed over the same maze
+     */
+    static long hash (MazeProblem problem) {
+        long hash = 1;
+        int total = problem.getRows() * problem.getCols();
+        for (int cell = 0; cell < total; cell++) {
+            hash = hash * 31 + problem.getCell(cell);
+        }
+        return hash;
+    }
+
+    /**
+     * Writes these landmarks and their tables to a file, to be read back by load.
+     *
+     * @param problem The MazeProblem the landmarks were selected for
+     * @param file Path of the file to create or overwrite
+     * @throws IOException If the file cannot be written
+     */
+    void save (MazeProblem problem, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(problem.getRows());
+            out.writeInt(problem.getCols());
+            out.writeLong(hash(problem));
+            out.writeInt(cells.length);
+            for (int i = 0; i < cells.length; i++) {
+                out.writeInt(cells[i]);
+                for (int dist : from[i]) {
+                    out.writeInt(dist);
+                }
+                for (int dist : to[i]) {
+                    out.writeInt(dist);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads landmarks written by save.
+     *
+     * @param problem The MazeProblem the landmarks were selected for
+     * @param file Path of the file to read
+     * @return The landmarks, with their tables
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file does not hold landmarks for
+     * this maze
+     */
+    static Landmarks load (MazeProblem problem, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a landmark file");
+            }
+            if (in.readInt() != problem.getRows() || in.readInt() != problem.getCols() ||
+                in.readLong() != hash(problem)) {
+                throw new IllegalArgumentException("Landmarks were computed for a different maze");
+            }
+            int count = in.readInt(), total = problem.getRows() * problem.getCols();
+            int[] cells = new int[count];
+            int[][] from = new int[count][total], to = new int[count][total];
+            for (int i = 0; i < count; i++) {
+                cells[i] = in.readInt();
+                for (int cell = 0; cell < total; cell++) {
+                    from[i][cell] = in.readInt();
+                }
+                for (int cell = 0; cell < total; cell++) {
+                    to[i][cell] = in.readInt();
+                }
+            }
+            return new Landmarks(cells, from, to);
+        }
+    }
+}
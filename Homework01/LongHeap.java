@@ -0,0 +1,77 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive longs that grows as needed, for frontiers whose
+ * entries pack their priority into the high bits and their item into the low
+ * bits. Unlike IndexedMinHeap, an item may be pushed any number of times, and
+ * the searches skip the stale entries when they are popped.
+ */
+class LongHeap {
+
+    private long[] heap = new long[1 << 10];
+    private int size;
+
+    /**
+     * @return Boolean of whether or not the heap holds no entries
+     */
+    boolean isEmpty () {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of entries in the heap, stale ones included
+     */
+    int size () {
+        return size;
+    }
+
+    /**
+     * @param entry The entry to add
+     */
+    void push (long entry) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heap[up] <= entry) {
+                break;
+            }
+            heap[i] = heap[up];
+            i = up;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * Removes and returns the smallest entry.
+     *
+     * @return The removed entry
+     */
+    long pop () {
+        long top = heap[0], last = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+}
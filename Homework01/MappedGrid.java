@@ -0,0 +1,80 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.nio.ByteBuffer;
+
+/**
+ * MazeGrid served straight from the bytes of a memory-mapped maze file, either
+ * as text, one character per cell, or as binary, 2 bits per cell. A single
+ * mapping cannot exceed 2 GB, so the file is mapped in segments; no cell ever
+ * straddles two of them.
+ */
+class MappedGrid implements MazeGrid {
+
+    // Bytes per mapped segment, as a power of two
+    static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    // Cell code of every byte value in a text maze; characters that are not
+    // walls, mud, or goals are floor, including 'I' and 'K'
+    private static final byte[] TEXT_CODES = new byte[256];
+    static {
+        TEXT_CODES['X'] = MazeProblem.WALL;
+        TEXT_CODES['M'] = MazeProblem.MUD;
+        TEXT_CODES['G'] = MazeProblem.GOAL;
+    }
+
+    // The mapped segments, or null once closed
+    private ByteBuffer[] segments;
+    private final long offset, stride;
+    private final int cols;
+    private final boolean packed;
+
+    /**
+     * Constructs a new MappedGrid over the given segments.
+     *
+     * @param segments The mapped file, where segment i starts at byte i << SEGMENT_BITS
+     * @param offset The byte at which the first cell starts
+     * @param cols The number of columns in the maze
+     * @param stride For a text maze, the bytes from the start of one row to the
+     * start of the next, including the line separator; ignored if packed
+     * @param packed Boolean of whether the cells are 2-bit codes, 4 per byte, from
+     * the low bits up, or else one character each
+     */
+    MappedGrid (ByteBuffer[] segments, long offset, int cols, long stride, boolean packed) {
+        this.segments = segments;
+        this.offset = offset;
+        this.cols = cols;
+        this.stride = stride;
+        this.packed = packed;
+    }
+
+    public int get (int index) {
+        if (packed) {
+            return (read(offset + (index >>> 2)) >>> ((index & 3) << 1)) & 3;
+        }
+        return TEXT_CODES[read(offset + (long) (index / cols) * stride + index % cols)];
+    }
+
+    public void set (int index, int code) {
+        throw new UnsupportedOperationException("Mazes mapped from a file are read-only");
+    }
+
+    /**
+     * Drops the mapping, which Java unmaps once it is no longer reachable; there
+     * is no way to unmap it sooner without risking a crash on a later read.
+     */
+    @Override
+    public void close () {
+        segments = null;
+    }
+
+    /**
+     * @return The unsigned value of the byte at the given position in the file
+     */
+    private int read (long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK)) & 0xFF;
+    }
+}
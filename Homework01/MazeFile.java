@@ -0,0 +1,391 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Loads and saves mazes as files, so that mazes too large to hold as a String[]
+ * can still be searched. Files are memory-mapped rather than read; the initial,
+ * key, and goal cells are found in one streaming pass, after which the cells are
+ * served straight from the mapping and never copied onto the heap.<br>
+ * Two formats are read: text, with one row of the maze per line as in the
+ * MazeProblem constructor, and binary, as written by save.
+ */
+class MazeFile {
+
+    // Binary format: the magic number "MAZ3", then the number of rows, columns,
+    // the row-major index of the initial cell (-1 if absent), the number of keys
+    // and the row-major index of each, as big-endian ints, then every cell as a
+    // 2-bit code, 4 per byte from the low bits up, with the initial and key
+    // cells stored as OPEN
+    static final int MAGIC = 0x4D415A33;
+
+    // Tiled format: the magic number "MAZ4", then the number of rows, columns,
+    // the row-major index of the initial cell (-1 if absent), the width of a
+    // tile in cells, a power of two, the number of keys and the row-major index
+    // of each, and the number of goals and the index of each, as big-endian
+    // ints, so that no cell need be read to find them. Then every tile, in
+    // row-major order, as its cells in row-major order, 2 bits each as in the
+    // binary format; tiles past the edge of the maze are filled out with walls
+    static final int MAGIC_TILED = 0x4D415A34;
+
+    /**
+     * Memory-maps the given maze file and constructs a MazeProblem over it.
+     *
+     * @param file Path of a text or binary maze file
+     * @return The MazeProblem, whose cells are read from the mapped file
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file is not a valid maze
+     */
+    static MazeProblem load (Path file) throws IOException {
+        ByteBuffer[] segments;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            segments = new ByteBuffer[(int) ((size + (1L << MappedGrid.SEGMENT_BITS) - 1) >>> MappedGrid.SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << MappedGrid.SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                                          Math.min(1L << MappedGrid.SEGMENT_BITS, size - start));
+            }
+        }
+        int magic = segments.length > 0 && segments[0].limit() >= 4 ? segments[0].getInt(0) : 0;
+        return magic == MAGIC ? loadBinary(segments) : loadText(segments);
+    }
+
+    /**
+     * Reads a text maze: every line must hold the same number of cells and end in
+     * the same line separator, the last one optionally in none.
+     */
+    private static MazeProblem loadText (ByteBuffer[] segments) {
+        MazeState initial = null;
+        ArrayList<MazeState> keys = new ArrayList<MazeState>();
+        ArrayList<MazeState> goals = new ArrayList<MazeState>();
+        long position = 0, lineStart = 0, stride = -1;
+        int rows = 0, cols = -1, col = 0;
+        boolean carriageReturn = false;
+
+        for (ByteBuffer segment : segments) {
+            for (int i = 0; i < segment.limit(); i++, position++) {
+                int c = segment.get(i);
+                if (c == '\n') {
+                    if (stride < 0) {
+                        cols = col;
+                        stride = position + 1;
+                    }
+                    checkLine(lineStart, rows, col, cols, stride);
+                    rows++;
+                    col = 0;
+                    lineStart = position + 1;
+                    carriageReturn = false;
+                    continue;
+                }
+                if (carriageReturn) {
+                    throw new IllegalArgumentException("Maze formatted invalidly");
+                }
+                switch (c) {
+                case '\r':
+                    carriageReturn = true; continue;
+                case 'I':
+                    initial = new MazeState(col, rows); break;
+                case 'K':
+                    keys.add(new MazeState(col, rows)); break;
+                case 'G':
+                    goals.add(new MazeState(col, rows)); break;
+                case 'M': case 'X': case '.':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Maze formatted invalidly");
+                }
+                col++;
+            }
+        }
+        if (col > 0 || carriageReturn) {
+            if (stride < 0) {
+                cols = col;
+            }
+            checkLine(lineStart, rows, col, cols, stride);
+            rows++;
+        }
+        cols = Math.max(cols, 0);
+        stride = stride < 0 ? cols : stride;
+        checkSize(rows, cols);
+        MappedGrid grid = new MappedGrid(segments, 0, cols, stride, false);
+        return new MazeProblem(grid, rows, cols, initial, keys, goals);
+    }
+
+    /**
+     * Checks that a line of a text maze has the same length and position as it
+     * would if every line were laid out like the first.
+     */
+    private static void checkLine (long lineStart, int row, int length, int cols, long stride) {
+        if (length != cols || (stride >= 0 && lineStart != row * stride)) {
+            throw new IllegalArgumentException("Maze formatted invalidly");
+        }
+    }
+
+    private static void checkSize (int rows, int cols) {
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Maze has more than " + Integer.MAX_VALUE + " cells");
+        }
+    }
+
+    /**
+     * Reads a binary maze; only the goals must be searched for, and bytes holding
+     * no goal are skipped with a single test, since a goal is the only code with
+     * both of its bits set.
+     */
+    private static MazeProblem loadBinary (ByteBuffer[] segments) {
+        ByteBuffer header = segments[0];
+        if (header.limit() < 20) {
+            throw new IllegalArgumentException("Maze formatted invalidly");
+        }
+        int rows = header.getInt(4), cols = header.getInt(8), initial = header.getInt(12);
+        int keyCount = header.getInt(16), headerBytes = 20 + 4 * keyCount;
+        if (rows < 0 || cols < 0 || keyCount < 0 || keyCount > (header.limit() - 20) / 4) {
+            throw new IllegalArgumentException("Maze formatted invalidly");
+        }
+        checkSize(rows, cols);
+        long cells = (long) rows * cols, size = 0;
+        for (ByteBuffer segment : segments) {
+            size += segment.limit();
+        }
+        int[] keyCells = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keyCells[i] = header.getInt(20 + 4 * i);
+            if (keyCells[i] < 0 || keyCells[i] >= cells) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+        }
+        if (size < headerBytes + ((cells + 3) >>> 2) || initial >= cells) {
+            throw new IllegalArgumentException("Maze formatted invalidly");
+        }
+
+        ArrayList<MazeState> goals = new ArrayList<MazeState>();
+        long position = 0;
+        for (ByteBuffer segment : segments) {
+            for (int i = 0; i < segment.limit(); i++, position++) {
+                long first = (position - headerBytes) << 2;
+                if (position < headerBytes || first >= cells) {
+                    continue;
+                }
+                int b = segment.get(i), goalBits = b & (b >>> 1) & 0x55;
+                while (goalBits != 0) {
+                    long cell = first + (Integer.numberOfTrailingZeros(goalBits) >>> 1);
+                    if (cell < cells) {
+                        goals.add(new MazeState((int) (cell % cols), (int) (cell / cols)));
+                    }
+                    goalBits &= goalBits - 1;
+                }
+            }
+        }
+        Arrays.sort(keyCells);
+        ArrayList<MazeState> keys = new ArrayList<MazeState>();
+        for (int key : keyCells) {
+            keys.add(state(key, cols));
+        }
+        MappedGrid grid = new MappedGrid(segments, headerBytes, cols, 0, true);
+        return new MazeProblem(grid, rows, cols, state(initial, cols), keys, goals);
+    }
+
+    private static MazeState state (int index, int cols) {
+        return index < 0 ? null : new MazeState(index % cols, index / cols);
+    }
+
+    /**
+     * Writes the given maze to a file in the binary format, at 2 bits per cell.
+     *
+     * @param problem The MazeProblem to write
+     * @param file Path of the file to create or overwrite
+     * @throws IOException If the file cannot be written
+     */
+    static void save (MazeProblem problem, Path file) throws IOException {
+        int rows = problem.getRows(), cols = problem.getCols(), cells = rows * cols;
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            buffer.putInt(MAGIC).putInt(rows).putInt(cols).putInt(index(problem.INITIAL_STATE, cols))
+                  .putInt(problem.KEY_STATES.size());
+            for (MazeState key : problem.KEY_STATES) {
+                if (buffer.remaining() < 4) {
+                    write(channel, buffer);
+                }
+                buffer.putInt(index(key, cols));
+            }
+            for (int cell = 0; cell < cells; cell += 4) {
+                int b = 0;
+                for (int i = 0; i < 4 && cell + i < cells; i++) {
+                    b |= problem.getCell(cell + i) << (i << 1);
+                }
+                if (!buffer.hasRemaining()) {
+                    write(channel, buffer);
+                }
+                buffer.put((byte) b);
+            }
+            write(channel, buffer);
+        }
+    }
+
+    /**
+     * Opens the given tiled maze file and constructs a MazeProblem over it, whose
+     * cells are read a tile at a time as they are needed.
+     *
+     * @param file Path of a maze file written by saveTiled
+     * @param cacheTiles The most decoded tiles to keep in memory at once
+     * @return The MazeProblem, whose cells are read from the file
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file is not a valid tiled maze
+     */
+    static MazeProblem loadTiled (Path file, int cacheTiles) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = readFully(channel, 0, 24);
+            int rows = header.getInt(4), cols = header.getInt(8), initial = header.getInt(12);
+            int tileSize = header.getInt(16), keyCount = header.getInt(20);
+            if (header.getInt(0) != MAGIC_TILED || rows < 0 || cols < 0 || tileSize < 2 ||
+                Integer.bitCount(tileSize) != 1 || tileSize > 1 << 15 || keyCount < 0) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+            checkSize(rows, cols);
+            long cells = (long) rows * cols, position = 24;
+            if (initial >= cells || (long) keyCount * 4 > channel.size()) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+            int[] keyCells = readCells(channel, position, keyCount, cells);
+            position += 4L * keyCount;
+            int goalCount = readFully(channel, position, 4).getInt(0);
+            position += 4;
+            if (goalCount < 0 || (long) goalCount * 4 > channel.size()) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+            int[] goalCells = readCells(channel, position, goalCount, cells);
+            position += 4L * goalCount;
+
+            int tileBits = Integer.numberOfTrailingZeros(tileSize);
+            long tiles = (long) ((rows + tileSize - 1) >>> tileBits) * ((cols + tileSize - 1) >>> tileBits);
+            if (channel.size() < position + tiles * (tileSize * tileSize / 4)) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+            Arrays.sort(keyCells);
+            ArrayList<MazeState> keys = new ArrayList<MazeState>(), goals = new ArrayList<MazeState>();
+            for (int key : keyCells) {
+                keys.add(state(key, cols));
+            }
+            for (int goal : goalCells) {
+                goals.add(state(goal, cols));
+            }
+            TiledGrid grid = new TiledGrid(channel, position, rows, cols, tileBits, cacheTiles);
+            return new MazeProblem(grid, rows, cols, state(initial, cols), keys, goals);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The given number of bytes of the file from the given position
+     * @throws IllegalArgumentException If the file ends before them
+     */
+    private static ByteBuffer readFully (FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * @return The given number of row-major cell indices, stored as ints from the
+     * given position, each checked to lie in the maze
+     */
+    private static int[] readCells (FileChannel channel, long position, int count, long cells) throws IOException {
+        ByteBuffer buffer = readFully(channel, position, 4 * count);
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = buffer.getInt(4 * i);
+            if (result[i] < 0 || result[i] >= cells) {
+                throw new IllegalArgumentException("Maze formatted invalidly");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the given maze to a file in the tiled format, a tile at a time.
+     *
+     * @param problem The MazeProblem to write
+     * @param file Path of the file to create or overwrite
+     * @param tileSize The width and height of a tile, in cells: a power of two,
+     * from 2 to 32768
+     * @throws IOException If the file cannot be written
+     * @throws IllegalArgumentException If the tile size is not a power of two in range
+     */
+    static void saveTiled (MazeProblem problem, Path file, int tileSize) throws IOException {
+        if (tileSize < 2 || tileSize > 1 << 15 || Integer.bitCount(tileSize) != 1) {
+            throw new IllegalArgumentException("Tile size must be a power of two from 2 to 32768: " + tileSize);
+        }
+        int rows = problem.getRows(), cols = problem.getCols();
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            buffer.putInt(MAGIC_TILED).putInt(rows).putInt(cols).putInt(index(problem.INITIAL_STATE, cols))
+                  .putInt(tileSize).putInt(problem.KEY_STATES.size());
+            for (MazeState key : problem.KEY_STATES) {
+                if (buffer.remaining() < 4) {
+                    write(channel, buffer);
+                }
+                buffer.putInt(index(key, cols));
+            }
+            if (buffer.remaining() < 4) {
+                write(channel, buffer);
+            }
+            buffer.putInt(problem.GOAL_STATE.size());
+            for (MazeState goal : problem.GOAL_STATE) {
+                if (buffer.remaining() < 4) {
+                    write(channel, buffer);
+                }
+                buffer.putInt(index(goal, cols));
+            }
+            for (int top = 0; top < rows; top += tileSize) {
+                for (int left = 0; left < cols; left += tileSize) {
+                    for (int i = 0; i < tileSize * tileSize; i += 4) {
+                        int b = 0;
+                        for (int j = i; j < i + 4; j++) {
+                            int row = top + j / tileSize, col = left + j % tileSize;
+                            int code = row < rows && col < cols ? problem.getCell(row * cols + col) : MazeProblem.WALL;
+                            b |= code << ((j & 3) << 1);
+                        }
+                        if (!buffer.hasRemaining()) {
+                            write(channel, buffer);
+                        }
+                        buffer.put((byte) b);
+                    }
+                }
+            }
+            write(channel, buffer);
+        }
+    }
+
+    private static int index (MazeState state, int cols) {
+        return state == null ? -1 : state.row * cols + state.col;
+    }
+
+    private static void write (FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
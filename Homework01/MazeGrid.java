@@ -0,0 +1,38 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.io.IOException;
+
+/**
+ * Access to the cells of a maze by row-major index, each one of the cell
+ * codes MazeProblem.OPEN, WALL, MUD, or GOAL. Lets a MazeProblem keep its cells
+ * on heap or serve them from somewhere else, such as a mapped file, which is
+ * released by close.
+ */
+interface MazeGrid extends AutoCloseable {
+
+    /**
+     * @param index Row-major index of the cell to read, i.e., row * cols + col
+     * @return One of MazeProblem.OPEN, WALL, MUD, or GOAL
+     */
+    int get (int index);
+
+    /**
+     * @param index Row-major index of the cell to set
+     * @param code One of MazeProblem.OPEN, WALL, MUD, or GOAL
+     * @throws UnsupportedOperationException If the grid is read-only
+     */
+    void set (int index, int code);
+
+    /**
+     * Releases whatever the cells are served from; no cell may be read after.
+     * Grids held on heap have nothing to release.
+     *
+     * @throws IOException If a file behind the grid cannot be closed
+     */
+    @Override
+    default void close () throws IOException {
+    }
+}
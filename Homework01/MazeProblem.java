@@ -3,38 +3,52 @@
 
 //package pathfinder.informed;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Specifies the Maze Grid pathfinding problem including the actions, transitions,
  * goal test, and solution test. Can be fed as an input to a Search algorithm to
  * find and then test a solution.
  */
-public class MazeProblem {
+public class MazeProblem implements AutoCloseable {
 
     // Fields
     // -----------------------------------------------------------------------------
-    private String[] maze;
+    private MazeGrid grid;
     private int rows, cols;
+    private volatile Distances distances;
+    private volatile NearestGoal nearestGoal;
+    private Landmarks landmarks;
+    private HierarchicalSearch hierarchy;
     public final MazeState INITIAL_STATE, KEY_STATE;
-    public final ArrayList<MazeState> GOAL_STATE;
-    private static final Map<String, MazeState> TRANS_MAP = createTransitions();
+    public final ArrayList<MazeState> KEY_STATES, GOAL_STATE;
     
-    /**
-     * @return Creates the transition map that maps String actions to 
-     * MazeState offsets, of the format:
-     * { "U": (0, -1), "D": (0, +1), "L": (-1, 0), "R": (+1, 0) }
-     */
-    private static final Map<String, MazeState> createTransitions () {
-        Map<String, MazeState> result = new HashMap<>();
-        result.put("U", new MazeState(0, -1));
-        result.put("D", new MazeState(0,  1));
-        result.put("L", new MazeState(-1, 0));
-        result.put("R", new MazeState( 1, 0));
-        return result;
-    }
+    // Row-major indices of the keys, in the same order as KEY_STATES, which is
+    // row-major order, so that a cell's key number is found by binary search
+    private int[] keyCells;
+    
+    // Cell codes stored in the grid, 2 bits each, in row-major order. The initial
+    // and key cells are stored as OPEN, since their positions are already kept
+    // in INITIAL_STATE and KEY_STATES
+    static final int OPEN = 0, WALL = 1, MUD = 2, GOAL = 3;
+    
+    // Cost of moving onto a mud tile; the largest step cost in any maze
+    static final int MUD_COST = 3;
+    
+    // Actions indexed by direction code, used by the index-based searches
+    static final String[] ACTIONS = {"U", "D", "L", "R"};
+    
+    // The action of staying in place for a step, taken by the agents of the
+    // cooperative search; it costs as much as a step onto open floor
+    static final String WAIT = "W";
     
     
     // Constructor
@@ -46,7 +60,8 @@ public class MazeProblem {
      * 
      * @param maze An array of Strings in which characters represent the legal maze
      * entities, including:<br>
-     * 'X': A wall, 'G': A goal, 'I': The initial state, '.': an open spot
+     * 'X': A wall, 'G': A goal, 'I': The initial state, '.': an open spot,
+     * 'M': mud, 'K': a key, of which there may be several, all to be collected
      * For example, a valid maze might look like:
      * <pre>
      * String[] maze = {
@@ -60,36 +75,150 @@ public class MazeProblem {
      * </pre>
      */
     MazeProblem (String[] maze) {
-        this.maze = maze;
         this.rows = maze.length;
         this.cols = (rows == 0) ? 0 : maze[0].length();
+        PackedGrid packed = new PackedGrid((long) rows * cols);
         MazeState foundInitial = null;
-        MazeState foundKey = null;
+        ArrayList<MazeState> foundKeys = new ArrayList<MazeState>();
         ArrayList<MazeState> foundGoal = new ArrayList<MazeState>();
         
         // Find the initial and goal state in the given maze, and then
-        // store in fields once found
+        // store in fields once found; every cell is packed into the grid
+        // on the same pass so the Strings are never consulted again
         for (int row = 0; row < rows; row++) {
             for (int col = 0; col < cols; col++) {
+                int code = OPEN;
                 switch (maze[row].charAt(col)) {
                 case 'I':
                     foundInitial = new MazeState(col, row); break;
                 case 'G':
-                    foundGoal.add(new MazeState(col, row)); break;
+                    foundGoal.add(new MazeState(col, row)); code = GOAL; break;
                 case 'K':
-                    foundKey = new MazeState(col, row); break;
-                case '.':
+                    foundKeys.add(new MazeState(col, row)); break;
                 case 'M':
+                    code = MUD; break;
                 case 'X':
+                    code = WALL; break;
+                case '.':
                     break;
                 default:
                     throw new IllegalArgumentException("Maze formatted invalidly");
                 }
+                packed.set(row * cols + col, code);
             }
         }
-        KEY_STATE = foundKey;
+        this.grid = packed;
+        KEY_STATES = foundKeys;
+        KEY_STATE = foundKeys.isEmpty() ? null : foundKeys.get(0);
         INITIAL_STATE = foundInitial;
         GOAL_STATE = foundGoal;
+        indexKeys();
+    }
+    
+    /**
+     * Constructs a new MazeProblem over cells that are already stored, and whose
+     * initial, key, and goal states are already found.
+     * 
+     * @param grid The cells of the maze
+     * @param rows The number of rows in the maze
+     * @param cols The number of columns in the maze
+     * @param initial The initial state, or null if there is none
+     * @param keys Every key state, in row-major order
+     * @param goals Every goal state
+     */
+    MazeProblem (MazeGrid grid, int rows, int cols, MazeState initial, ArrayList<MazeState> keys, ArrayList<MazeState> goals) {
+        this.grid = grid;
+        this.rows = rows;
+        this.cols = cols;
+        INITIAL_STATE = initial;
+        KEY_STATES = keys;
+        KEY_STATE = keys.isEmpty() ? null : keys.get(0);
+        GOAL_STATE = goals;
+        indexKeys();
+    }
+    
+    private void indexKeys () {
+        keyCells = new int[KEY_STATES.size()];
+        for (int i = 0; i < keyCells.length; i++) {
+            keyCells[i] = KEY_STATES.get(i).row * cols + KEY_STATES.get(i).col;
+        }
+    }
+    
+    /**
+     * Constructs a new MazeProblem from a maze file, which is memory-mapped
+     * rather than read onto the heap; see MazeFile for the formats accepted.
+     * 
+     * @param file Path of a text maze, formatted one row per line as for the
+     * String[] constructor, or of a binary maze written by save
+     * @return The MazeProblem, whose cells are read from the mapped file until it
+     * is closed
+     * @throws IOException If the file cannot be read
+     */
+    public static MazeProblem load (Path file) throws IOException {
+        return MazeFile.load(file);
+    }
+    
+    /**
+     * Writes this maze to a file in the compact binary format, at 2 bits per
+     * cell, to be read back by load.
+     * 
+     * @param file Path of the file to create or overwrite
+     * @throws IOException If the file cannot be written
+     */
+    public void save (Path file) throws IOException {
+        MazeFile.save(this, file);
+    }
+    
+    /**
+     * Constructs a new MazeProblem from a tiled maze file, for mazes too large to
+     * hold in memory at all: tiles are read from the file as the cells on them are
+     * first asked for, and only the given number of them, the most recently used,
+     * are kept at once.
+     * 
+     * @param file Path of a maze written by saveTiled
+     * @param cacheTiles The most decoded tiles to keep in memory at once, at a byte
+     * per cell each
+     * @return The MazeProblem, whose cells are read from the file, which is kept
+     * open until the problem is closed
+     * @throws IOException If the file cannot be read
+     */
+    public static MazeProblem loadTiled (Path file, int cacheTiles) throws IOException {
+        return MazeFile.loadTiled(file, cacheTiles);
+    }
+    
+    /**
+     * Writes this maze to a file in the tiled format, split into square tiles of
+     * the given size, to be read back by loadTiled.
+     * 
+     * @param file Path of the file to create or overwrite
+     * @param tileSize The width and height of a tile, in cells: a power of two,
+     * from 2 to 32768
+     * @throws IOException If the file cannot be written
+     */
+    public void saveTiled (Path file, int tileSize) throws IOException {
+        MazeFile.saveTiled(this, file, tileSize);
+    }
+    
+    /**
+     * @return For a maze loaded by loadTiled, the number of cells read from a cached
+     * tile, and of tiles read from the file, as {hits, misses}; otherwise null
+     */
+    public long[] getTileCacheCounts () {
+        return grid instanceof TiledGrid ? ((TiledGrid) grid).getCounts() : null;
+    }
+    
+    /**
+     * Releases the file behind a maze loaded by load or loadTiled; a maze held on
+     * the heap has nothing to release. The problem must not be searched after.
+     * A mapped file is unmapped only once its mapping is garbage collected after
+     * this, and until then some platforms, Windows among them, refuse to write to
+     * or delete it.
+     * 
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close () throws IOException {
+        grid.close();
     }
     
     
@@ -103,12 +232,53 @@ public class MazeProblem {
      * @return Boolean of whether or not the given state is a Goal.
      */
     public boolean isGoal (MazeState state) {
-        for(int i = 0; i < GOAL_STATE.size(); i++) {
-            if(state.equals(GOAL_STATE.get(i))) {
-                return true;
-            }
-        }
-        return false;
+        return inBounds(state.col, state.row) && getCell(state.row * cols + state.col) == GOAL;
+    }
+    
+    /**
+     * Returns the number of the key at the given cell, i.e., its position in
+     * KEY_STATES.
+     * 
+     * @param index Row-major index of the cell
+     * @return The key's number, or -1 if the cell holds no key
+     */
+    int getKeyNumber (int index) {
+        int found = Arrays.binarySearch(keyCells, index);
+        return found < 0 ? -1 : found;
+    }
+    
+    /**
+     * @return The number of rows in the maze
+     */
+    int getRows () {
+        return rows;
+    }
+    
+    /**
+     * @return The number of columns in the maze
+     */
+    int getCols () {
+        return cols;
+    }
+    
+    /**
+     * Returns the code of the cell at the given row-major index, i.e.,
+     * row * cols + col.
+     * 
+     * @param index Row-major index of the cell to read
+     * @return One of OPEN, WALL, MUD, or GOAL
+     */
+    int getCell (int index) {
+        return grid.get(index);
+    }
+    
+    /**
+     * @param col Column to test
+     * @param row Row to test
+     * @return Boolean of whether or not (col, row) lies within the maze
+     */
+    boolean inBounds (int col, int row) {
+        return row >= 0 && row < rows && col >= 0 && col < cols;
     }
     
     /**
@@ -118,44 +288,202 @@ public class MazeProblem {
      * @param state A MazeState (col, row) representing the current state
      * from which actions can be taken
      * @return Map A map of actions to the states that they lead to, of the
-     * format, for current MazeState (c, r):<br>
+     * format, for current MazeState (c, r), in this order:<br>
      * { "U": (c, r-1), "D": (c, r+1), "L": (c-1, r), "R": (c+1, r) }
      */
     public Map<String, MazeState> getTransitions (MazeState state) {
-        // Store transitions as a Map between actions ("U", "D", ...) and
-        // the MazeStates that they result in from state
-        Map<String, MazeState> result = new HashMap<>();
-        
-        // For each of the possible directions (stored in TRANS_MAP), test
-        // to see if it is a valid transition
-        for (Map.Entry<String, MazeState> action : TRANS_MAP.entrySet()) {
-            MazeState actionMod = action.getValue(),
-                      newState  = new MazeState(state.col, state.row);
-            newState.add(actionMod);
-            
-            // If the given state *is* a valid transition (i.e., within
-            // map bounds and no wall at the position)...
-            if (newState.row >= 0 && newState.row < rows &&
-                newState.col >= 0 && newState.col < cols &&
-                maze[newState.row].charAt(newState.col) != 'X') {
-                // ...then add it to the result!
-                result.put(action.getKey(), newState);
+        Map<String, MazeState> result = new LinkedHashMap<>();
+        if (!inBounds(state.col, state.row)) {
+            return result;
+        }
+        int[] neighbours = new int[4];
+        getNeighbours(state.row * cols + state.col, neighbours);
+        for (int dir = 0; dir < 4; dir++) {
+            if (neighbours[dir] >= 0) {
+                result.put(ACTIONS[dir], new MazeState(neighbours[dir] % cols, neighbours[dir] / cols));
             }
         }
         return result;
     }
+    
+    /**
+     * Finds the cells that can be reached from the given cell in one action,
+     * without allocating: the row-major index of the cell each direction leads
+     * to is written to out at that direction's code, so that the actions are
+     * always tried in the fixed order U, D, L, R.
+     * 
+     * @param index Row-major index of the current cell, which must be in bounds
+     * @param out An int[] of at least 4 elements; out[dir] is set to the cell
+     * that ACTIONS[dir] leads to, or -1 if it leads out of bounds or into a wall
+     * @return The number of directions that lead to a cell
+     */
+    int getNeighbours (int index, int[] out) {
+        int col = index % cols, row = index / cols, count = 0;
+        out[0] = row > 0 && grid.get(index - cols) != WALL ? index - cols : -1;
+        out[1] = row < rows - 1 && grid.get(index + cols) != WALL ? index + cols : -1;
+        out[2] = col > 0 && grid.get(index - 1) != WALL ? index - 1 : -1;
+        out[3] = col < cols - 1 && grid.get(index + 1) != WALL ? index + 1 : -1;
+        for (int dir = 0; dir < 4; dir++) {
+            if (out[dir] >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
     /**
       * Takes the current state and returns the cost over moving through the current tile.
       * @param MazeState state   The current state        
       * @return int  The cost associated with the given state
       */
     public int getCost(MazeState state) {
-        if(maze[state.row].charAt(state.col) == 'M') {
-            return 3;
+        return getCost(state.row * cols + state.col);
+    }
+    
+    /**
+      * Takes the row-major index of a tile and returns the cost of moving through it.
+      * @param int index   Row-major index of the tile
+      * @return int  The cost associated with the given tile
+      */
+    int getCost(int index) {
+        return getCell(index) == MUD ? MUD_COST : 1;
+    }
+    
+    /**
+     * Changes a cell of the maze to a wall, open floor, or mud. Any precomputed
+     * distance fields, landmarks, and hierarchy are discarded, since they may no
+     * longer hold; searches already underway are not told of the change (see
+     * IncrementalPlanner for a search that is).
+     * 
+     * @param state The MazeState (col, row) of the cell to change
+     * @param c The new contents of the cell: 'X', '.', or 'M'
+     * @throws IllegalArgumentException If the cell is out of bounds, a key, or a
+     * goal, or c is not one of 'X', '.', or 'M'
+     * @throws UnsupportedOperationException If the maze was loaded from a file
+     */
+    public void setCell (MazeState state, char c) {
+        int code = c == 'X' ? WALL : c == 'M' ? MUD : c == '.' ? OPEN : -1;
+        if (code < 0 || !inBounds(state.col, state.row) ||
+            getKeyNumber(state.row * cols + state.col) >= 0 || isGoal(state)) {
+            throw new IllegalArgumentException("Cannot set " + state + " to '" + c + "'");
         }
-        else {
-            return 1;
+        grid.set(state.row * cols + state.col, code);
+        distances = null;
+        nearestGoal = null;
+        landmarks = null;
+        hierarchy = null;
+    }
+    
+    /**
+     * Precomputes, with one multi-source reverse Dijkstra each, the exact cost from
+     * every cell to its nearest goal and from every cell to the key, and stores them
+     * on this MazeProblem. Takes time and memory linear in the number of cells, after
+     * which the optimal path from any starting cell can be read off by descending the
+     * fields (see Pathfinder.solveFrom).
+     */
+    public void precomputeDistances () {
+        int[] goals = new int[GOAL_STATE.size()];
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = GOAL_STATE.get(i).row * cols + GOAL_STATE.get(i).col;
+        }
+        int[] keys = KEY_STATE == null ? new int[0] : new int[] {KEY_STATE.row * cols + KEY_STATE.col};
+        distances = new Distances(DistanceField.reverse(this, goals), DistanceField.reverse(this, keys));
+    }
+    
+    /**
+     * @return The distance fields precomputed by precomputeDistances, which are
+     * computed and stored first if there are none
+     */
+    synchronized Distances getDistances () {
+        if (distances == null) {
+            precomputeDistances();
+        }
+        return distances;
+    }
+    
+    /**
+     * @return The Manhattan distance to the nearest goal, with its distance transform
+     * built if there are many goals; it is built and stored on first use
+     */
+    synchronized NearestGoal getNearestGoal () {
+        if (nearestGoal == null) {
+            nearestGoal = new NearestGoal(this, true);
+        }
+        return nearestGoal;
+    }
+    
+    /**
+     * Selects landmark cells and precomputes the exact cost from each of them to
+     * every cell and back, and stores them on this MazeProblem; from then on, the
+     * A* searches bound the cost to the key and goals with the triangle inequality
+     * through the landmarks as well as with the Manhattan distance, which sees
+     * walls and mud. Takes two ints per cell for each landmark.
+     * 
+     * @param count The number of landmarks to select; a few, such as 8, suffice
+     */
+    public void precomputeLandmarks (int count) {
+        landmarks = Landmarks.select(this, count);
+    }
+    
+    /**
+     * Writes the landmarks precomputed by precomputeLandmarks to a file, so that
+     * they can be reused by loadLandmarks instead of computed again.
+     * 
+     * @param file Path of the file to create or overwrite
+     * @throws IOException If the file cannot be written
+     * @throws IllegalStateException If no landmarks have been precomputed
+     */
+    public void saveLandmarks (Path file) throws IOException {
+        if (landmarks == null) {
+            throw new IllegalStateException("No landmarks have been precomputed");
         }
+        landmarks.save(this, file);
+    }
+    
+    /**
+     * Reads landmarks written by saveLandmarks for this same maze, and stores them
+     * on this MazeProblem as precomputeLandmarks would.
+     * 
+     * @param file Path of the file to read
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If the file does not hold landmarks for a
+     * maze with the same cells as this one
+     */
+    public void loadLandmarks (Path file) throws IOException {
+        landmarks = Landmarks.load(this, file);
+    }
+    
+    /**
+     * @return The precomputed landmarks, or null if there are none
+     */
+    Landmarks getLandmarks () {
+        return landmarks;
+    }
+    
+    /**
+     * Builds the abstract graph that hierarchical search (see
+     * Pathfinder.solveHierarchical) runs over, with the maze split into square
+     * clusters of the given size, and stores it on this MazeProblem, so that
+     * queries from then on only search it. Takes time linear in the number of
+     * cells, times the number of entrances per cluster.
+     * 
+     * @param clusterSize The width and height of each cluster, in cells, at least 2
+     * @throws IllegalArgumentException If clusterSize is less than 2
+     */
+    public synchronized void precomputeHierarchy (int clusterSize) {
+        hierarchy = new HierarchicalSearch(this, clusterSize);
+    }
+    
+    /**
+     * @param clusterSize The width and height of each cluster, in cells
+     * @return The hierarchy precomputed for the given cluster size, which is built
+     * and stored first if there is none, or it is for another size
+     */
+    synchronized HierarchicalSearch getHierarchy (int clusterSize) {
+        if (hierarchy == null || hierarchy.getClusterSize() != clusterSize) {
+            precomputeHierarchy(clusterSize);
+        }
+        return hierarchy;
     }
     
     /**
@@ -163,33 +491,163 @@ public class MazeProblem {
  * as well as returning the cost.
  * 
  * @param possibleSoln A possible solution to test, which is a list of actions of the format:
- * ["U", "D", "D", "L", ...]
+ * ["U", "D", "D", "L", ...], where "W" waits in place for the cost of one step
  * @return A 2-element array of ints of the format [isSoln, cost] where:
- * isSoln will be 0 if it is not a solution, and 1 if it is
+ * isSoln will be 0 if it is not a solution, and 1 if it is, i.e., if it ends on a goal
+ * having collected every key along the way, in any order
  * cost will be an integer denoting the cost of the given solution to test optimality
  */
     public int[] testSolution (ArrayList<String> possibleSoln) {
-        // Update the "moving state" that begins at the start and is modified by the transitions
-        MazeState movingState = new MazeState(INITIAL_STATE.col, INITIAL_STATE.row);
-        int cost = 0;
-        boolean hasKey = false;
+        return testSolution(INITIAL_STATE, possibleSoln);
+    }
+    
+    /**
+     * Given a possibleSoln, tests to ensure that it is indeed a solution to this MazeProblem
+     * when starting from the given state rather than the initial state.
+     * 
+     * @param start The MazeState (col, row) that the solution starts from
+     * @param possibleSoln A possible solution to test, as in testSolution
+     * @return A 2-element array of ints of the format [isSoln, cost], as in testSolution
+     */
+    public int[] testSolution (MazeState start, ArrayList<String> possibleSoln) {
+        if (!possibleSoln.contains(WAIT)) {
+            return testSolution(start, CompactPath.of(possibleSoln));
+        }
+        // Waits leave the agent where it is, so the path is tested without them
+        ArrayList<String> moves = new ArrayList<String>(possibleSoln);
+        moves.removeIf(WAIT::equals);
+        int[] result = testSolution(start, CompactPath.of(moves));
+        if (result[1] >= 0) {
+            result[1] += possibleSoln.size() - moves.size();
+        }
+        return result;
+    }
+    
+    /**
+     * Given a possibleSoln in compact form, tests to ensure that it is indeed a
+     * solution to this MazeProblem, as in testSolution, without decoding it into
+     * Strings.
+     * 
+     * @param possibleSoln A possible solution to test
+     * @return A 2-element array of ints of the format [isSoln, cost], as in testSolution
+     */
+    public int[] testSolution (CompactPath possibleSoln) {
+        return testSolution(INITIAL_STATE, possibleSoln);
+    }
+    
+    /**
+     * Given a possibleSoln in compact form, tests to ensure that it is indeed a
+     * solution to this MazeProblem when starting from the given state.
+     * 
+     * @param start The MazeState (col, row) that the solution starts from
+     * @param possibleSoln A possible solution to test
+     * @return A 2-element array of ints of the format [isSoln, cost], as in testSolution
+     */
+    public int[] testSolution (MazeState start, CompactPath possibleSoln) {
+        int col = start.col, row = start.row, cost = 0;
         int[] result = {0, -1};
         
-        // For each action, modify the movingState, and then check that we have landed in
-        // a legal position in this maze
-        for (String action : possibleSoln) {
-            MazeState actionMod = TRANS_MAP.get(action);
-            movingState.add(actionMod);
-            switch (maze[movingState.row].charAt(movingState.col)) {
-            case 'X':
+        // Every key must be collected, in any order; one at the start counts
+        boolean[] collected = new boolean[keyCells.length];
+        int keysLeft = keyCells.length;
+        if (inBounds(start.col, start.row)) {
+            int found = getKeyNumber(start.row * cols + start.col);
+            if (found >= 0) {
+                collected[found] = true;
+                keysLeft--;
+            }
+        }
+        
+        // For each action, move by its offset, and then check that we have landed in
+        // a legal position in this maze; codes are read straight from the packed bytes
+        byte[] codes = possibleSoln.getCodes();
+        for (int step = 0, length = possibleSoln.length(); step < length; step++) {
+            int dir = codes[step >>> 2] >>> ((step & 3) << 1) & 3;
+            col += dir == 2 ? -1 : dir == 3 ? 1 : 0;
+            row += dir == 0 ? -1 : dir == 1 ? 1 : 0;
+            if (!inBounds(col, row)) {
                 return result;
-            case 'K':
-                hasKey = true; break;
             }
-            cost += getCost(movingState);
+            int index = row * cols + col, code = getCell(index);
+            if (code == WALL) {
+                return result;
+            }
+            int found = keysLeft == 0 ? -1 : getKeyNumber(index);
+            if (found >= 0 && !collected[found]) {
+                collected[found] = true;
+                keysLeft--;
+            }
+            cost += code == MUD ? MUD_COST : 1;
         }
-        result[0] = isGoal(movingState) && hasKey ? 1 : 0;
+        result[0] = inBounds(col, row) && getCell(row * cols + col) == GOAL && keyCells.length > 0 && keysLeft == 0 ? 1 : 0;
         result[1] = cost;
         return result;
     }
+    
+    /**
+     * Tests many possible solutions at once, as testSolution does each one from the
+     * initial state, spreading them across the common ForkJoinPool. The paths are
+     * only read, so they and this MazeProblem may be shared by every worker.
+     * 
+     * @param possibleSolns The possible solutions to test
+     * @return A 2-element array of int arrays of the format [isSoln, cost], where
+     * isSoln[i] and cost[i] are what testSolution gives for possibleSolns.get(i)
+     */
+    public int[][] testSolutions (List<CompactPath> possibleSolns) {
+        int[][] result = {new int[possibleSolns.size()], new int[possibleSolns.size()]};
+        int batch = Math.max(1, possibleSolns.size() / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        ForkJoinPool.commonPool().invoke(new TestTask(possibleSolns, result, 0, possibleSolns.size(), batch));
+        return result;
+    }
+    
+    /**
+     * The exact cost from every cell to its nearest goal and to the key, or
+     * DistanceField.UNREACHABLE, published together so that a search running
+     * alongside precomputeDistances never sees one field without the other.
+     */
+    static final class Distances {
+        
+        final int[] toGoal, toKey;
+        
+        private Distances (int[] toGoal, int[] toKey) {
+            this.toGoal = toGoal;
+            this.toKey = toKey;
+        }
+    }
+    
+    /**
+     * Tests possibleSolns[from .. to) into the matching slots of result, splitting
+     * the range in half until it is no larger than the batch size.
+     */
+    private class TestTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final List<CompactPath> possibleSolns;
+        private final int[][] result;
+        private final int from, to, batch;
+        
+        TestTask (List<CompactPath> possibleSolns, int[][] result, int from, int to, int batch) {
+            this.possibleSolns = possibleSolns;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+        }
+        
+        @Override
+        protected void compute () {
+            if (to - from > batch) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TestTask(possibleSolns, result, from, mid, batch),
+                          new TestTask(possibleSolns, result, mid, to, batch));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                int[] tested = testSolution(possibleSolns.get(i));
+                result[0][i] = tested[0];
+                result[1][i] = tested[1];
+            }
+        }
+    }
 }
@@ -42,7 +42,7 @@ public class MazeState {
     
     @Override
     public int hashCode () {
-        return row * col;
+        return Long.hashCode(((long) row << 32 | (col & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L);
     }
     
     public String toString () {
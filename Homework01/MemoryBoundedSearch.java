@@ -0,0 +1,436 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+/**
+ * Memory-bounded search over the (cell, keyObtained) states of a MazeProblem, by
+ * SMA* (Simplified Memory-bounded A*): best-first search, as in A*, over a search
+ * tree of at most a fixed number of nodes. When the tree is full, the leaf of
+ * greatest f, the shallowest of those tied, is forgotten to make room, and its f
+ * is kept on its parent, so that the parent is expanded again, regenerating only
+ * the children it has lost, once the least of those f is the least on the
+ * frontier. A child below which nothing is left to search is kept at infinite
+ * f, and is never generated again. A forgotten branch is thus searched again
+ * only when it may hold the cheapest path, and with room for every state reached
+ * the search is A*.<br>
+ * A state already in the tree at no greater g, and no greater depth, is not added
+ * again, which also cuts off every cycle, since the path to a node is always in
+ * the tree. A node whose Manhattan distance through the key to a goal takes it
+ * as deep as the budget allows is given up, so the path found is the cheapest of
+ * fewer steps than the budget, and once the least f on the frontier passes the
+ * most that so short a path can cost, there is none and the search stops. The
+ * heuristic is that of Pathfinder.manhattanH, with the Manhattan distance from
+ * the key to its nearest goal added before the key; it is consistent and takes
+ * no memory per cell.
+ */
+class MemoryBoundedSearch {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final MazeProblem problem;
+    private final int cols, key, keyToGoal, capacity;
+    private final int[] neighbours = new int[4];
+    private final MazeState probe = new MazeState(0, 0);
+
+    // The tree: for each node, its state, g, f, parent, and depth, its child in
+    // each direction or -1, the f of each child it does not have, INFINITY for
+    // none worth generating, and the least of those f; nodes not in the tree are
+    // chained through parent from free
+    private final int[] stateOf, gCost, fCost, parent, depth, children, childCost, forgotten;
+    private final boolean[] expanded;
+    private int free;
+
+    // The nodes that may be expanded, by least f and then deepest, and the
+    // leaves, by greatest f and then shallowest
+    private final IndexedMinHeap open, leaves;
+
+    // Open-addressing table from states to the node last added for each, which is
+    // the one of least g or depth
+    private final int[] slots, slotNodes;
+
+    // The node being expanded, which is never forgotten, or -1
+    private int expanding = -1;
+
+    /**
+     * Constructs a new MemoryBoundedSearch.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param nodeBudget The most nodes the search tree may hold, at about 90 bytes
+     * each; at least 2 are always held
+     */
+    MemoryBoundedSearch (MazeProblem problem, int nodeBudget) {
+        this.problem = problem;
+        this.cols = problem.getCols();
+        this.key = problem.KEY_STATE == null ? -1 : problem.KEY_STATE.row * cols + problem.KEY_STATE.col;
+        this.keyToGoal = key < 0 || problem.GOAL_STATE.isEmpty() ? 0
+                       : Pathfinder.goalManhattanH(problem.GOAL_STATE, problem.KEY_STATE);
+        this.capacity = Math.max(2, nodeBudget);
+        this.stateOf = new int[capacity];
+        this.gCost = new int[capacity];
+        this.fCost = new int[capacity];
+        this.parent = new int[capacity];
+        this.depth = new int[capacity];
+        this.children = new int[4 * capacity];
+        this.childCost = new int[4 * capacity];
+        this.forgotten = new int[capacity];
+        this.expanded = new boolean[capacity];
+        this.open = new IndexedMinHeap(capacity);
+        this.leaves = new IndexedMinHeap(capacity);
+        int tableSize = Integer.highestOneBit(capacity * 2 - 1) * 2;
+        this.slots = new int[tableSize];
+        this.slotNodes = new int[tableSize];
+        Arrays.fill(slots, -1);
+        for (int node = 0; node < capacity; node++) {
+            parent[node] = node + 1 < capacity ? node + 1 : -1;
+        }
+    }
+
+    /**
+     * Finds the cheapest path from the initial state through the key to any goal
+     * of fewer steps than the node budget, which is an optimal path whenever one
+     * is that short.
+     *
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    ArrayList<String> solve () {
+        if (problem.INITIAL_STATE == null || key < 0 || problem.GOAL_STATE.isEmpty()) {
+            return null;
+        }
+        int startCell = problem.INITIAL_STATE.row * cols + problem.INITIAL_STATE.col;
+        if (!goalReachable(startCell)) {
+            return null;
+        }
+        int root = add(startCell * 2 + (startCell == key ? 1 : 0), 0, -1, -1);
+        fCost[root] = estimate(stateOf[root]);
+        if (fCost[root] >= capacity) {
+            return null;
+        }
+        open.push(root, openKey(fCost[root], 0));
+        leaves.push(root, leafKey(fCost[root], 0));
+
+        // No path that visits each state at most once costs more than the first
+        // bound, and none of fewer steps than the budget more than the second
+        long limit = Math.min(2L * problem.getRows() * cols, capacity - 1L) * MazeProblem.MUD_COST;
+        while (!open.isEmpty() && open.getKey(open.peek()) >>> 32 <= limit) {
+            int node = open.pop();
+            if (!expanded[node] && isGoal(stateOf[node])) {
+                return getSolution(node);
+            }
+            expand(node, limit);
+        }
+        return null;
+    }
+
+    /**
+     * Flood-fills the maze from the given cell, at one bit per cell, to find out
+     * whether the key and a goal can be reached at all. SMA* cannot tell that it
+     * has seen a state it has forgotten, so without this it would prove there is
+     * no path only by searching every path within the cost limit.<br>
+     * Steps are reversible, so a goal can be reached through the key exactly when
+     * both are in the start's component. The cells waiting to be filled from are
+     * stacked in children, which is unused until the root is added; when it is
+     * full, a cell is left unfilled, and the filled cells are swept for unfilled
+     * neighbours once the stack empties.
+     */
+    private boolean goalReachable (int startCell) {
+        BitSet filled = new BitSet(problem.getRows() * cols);
+        int[] stack = children;
+        int size = 0;
+        boolean overflow = false;
+        filled.set(startCell);
+        stack[size++] = startCell;
+        while (size > 0 || overflow) {
+            if (size == 0) {
+                overflow = false;
+                for (int cell = filled.nextSetBit(0); cell >= 0 && !overflow; cell = filled.nextSetBit(cell + 1)) {
+                    problem.getNeighbours(cell, neighbours);
+                    for (int next : neighbours) {
+                        if (next >= 0 && !filled.get(next)) {
+                            if (size == stack.length) {
+                                overflow = true;
+                                break;
+                            }
+                            filled.set(next);
+                            stack[size++] = next;
+                        }
+                    }
+                }
+                continue;
+            }
+            problem.getNeighbours(stack[--size], neighbours);
+            for (int next : neighbours) {
+                if (next < 0 || filled.get(next)) {
+                    continue;
+                }
+                if (size == stack.length) {
+                    overflow = true;
+                    continue;
+                }
+                filled.set(next);
+                stack[size++] = next;
+            }
+        }
+        if (!filled.get(key)) {
+            return false;
+        }
+        for (MazeState goal : problem.GOAL_STATE) {
+            if (filled.get(goal.row * cols + goal.col)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Generates the children the given node does not have in the tree, forgetting
+     * the worst leaves to make room for them, and queues the node again if some
+     * of its children could not be kept.
+     */
+    private void expand (int node, long limit) {
+        expanding = node;
+        if (leaves.contains(node)) {
+            leaves.remove(node);
+        }
+        // Children are never estimated below the f of the node on a first
+        // expansion, nor below the f they were forgotten at on a later one
+        if (!expanded[node]) {
+            Arrays.fill(childCost, 4 * node, 4 * node + 4, fCost[node]);
+            expanded[node] = true;
+        }
+        forgotten[node] = INFINITY;
+        int cell = stateOf[node] >>> 1, hasKey = stateOf[node] & 1;
+
+        problem.getNeighbours(cell, neighbours);
+        for (int dir = 0; dir < 4; dir++) {
+            int nextCell = neighbours[dir], base = childCost[4 * node + dir];
+            if (children[4 * node + dir] >= 0 || base == INFINITY) {
+                continue;
+            }
+            childCost[4 * node + dir] = INFINITY;
+            if (nextCell < 0) {
+                continue;
+            }
+            int state = nextCell * 2 + (nextCell == key ? 1 : hasKey);
+            int g = gCost[node] + problem.getCost(nextCell), d = depth[node] + 1;
+            int old = find(state);
+            if (old >= 0 && gCost[old] <= g && depth[old] <= d) {
+                continue;
+            }
+            long f = Math.max((long) g + estimate(state), base);
+            // Every step left costs at least 1 and the estimate counts the steps
+            // between the cells it spans, so no path through a child reaches a goal
+            // within the depth the budget allows unless this holds; a child cut off
+            // here, and a subtree all of whose children are, stays at infinite f
+            if (f > limit || d + estimate(state) >= capacity) {
+                continue;
+            }
+            if (free < 0 && !forgetWorstLeaf()) {
+                childCost[4 * node + dir] = (int) f;
+                forgotten[node] = Math.min(forgotten[node], (int) f);
+                continue;
+            }
+            int child = add(state, g, node, dir);
+            fCost[child] = (int) f;
+            open.push(child, openKey(fCost[child], d));
+            leaves.push(child, leafKey(fCost[child], d));
+        }
+        expanding = -1;
+        requeue(node);
+    }
+
+    /**
+     * Puts a node back on the frontier, and among the leaves, as its children and
+     * the least f forgotten below it now require, or forgets it if it is a leaf
+     * below which nothing is left to search.
+     */
+    private void requeue (int node) {
+        boolean leaf = isLeaf(node);
+        if (leaf && forgotten[node] == INFINITY) {
+            forget(node);
+            return;
+        }
+        if (forgotten[node] != INFINITY) {
+            long key = openKey(forgotten[node], depth[node]);
+            if (open.contains(node)) {
+                open.update(node, key);
+            } else {
+                open.push(node, key);
+            }
+        }
+        if (leaf && !leaves.contains(node)) {
+            leaves.push(node, leafKey(forgotten[node], depth[node]));
+        }
+    }
+
+    /**
+     * Forgets the leaf of greatest f, the shallowest of those tied.
+     *
+     * @return Boolean of whether or not there was a leaf to forget
+     */
+    private boolean forgetWorstLeaf () {
+        if (leaves.isEmpty()) {
+            return false;
+        }
+        forget(leaves.peek());
+        return true;
+    }
+
+    /**
+     * Removes a leaf from the tree, keeping its f on its parent, and then requeues
+     * the parent, which is itself forgotten if nothing is left to search below it.
+     */
+    private void forget (int node) {
+        while (true) {
+            if (open.contains(node)) {
+                open.remove(node);
+            }
+            if (leaves.contains(node)) {
+                leaves.remove(node);
+            }
+            erase(stateOf[node], node);
+            int up = parent[node], f = expanded[node] ? forgotten[node] : fCost[node];
+            parent[node] = free;
+            free = node;
+            if (up < 0) {
+                return;
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                if (children[4 * up + dir] == node) {
+                    children[4 * up + dir] = -1;
+                    childCost[4 * up + dir] = f;
+                }
+            }
+            forgotten[up] = Math.min(forgotten[up], f);
+            if (up == expanding) {
+                return;
+            }
+            if (!isLeaf(up) || forgotten[up] != INFINITY) {
+                requeue(up);
+                return;
+            }
+            node = up;
+        }
+    }
+
+    private boolean isLeaf (int node) {
+        for (int dir = 0; dir < 4; dir++) {
+            if (children[4 * node + dir] >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return A new node for the given state, taken from the free chain
+     */
+    private int add (int state, int g, int up, int dir) {
+        int node = free;
+        free = parent[node];
+        stateOf[node] = state;
+        gCost[node] = g;
+        parent[node] = up;
+        depth[node] = up < 0 ? 0 : depth[up] + 1;
+        forgotten[node] = INFINITY;
+        expanded[node] = false;
+        Arrays.fill(children, 4 * node, 4 * node + 4, -1);
+        if (up >= 0) {
+            children[4 * up + dir] = node;
+        }
+        int slot = slotOf(state);
+        slots[slot] = state;
+        slotNodes[slot] = node;
+        return node;
+    }
+
+    /**
+     * @return The node holding the given state at the least g, or -1
+     */
+    private int find (int state) {
+        int slot = slotOf(state);
+        return slots[slot] == state ? slotNodes[slot] : -1;
+    }
+
+    /**
+     * @return The slot holding the given state, or the empty slot it belongs in
+     */
+    private int slotOf (int state) {
+        int mask = slots.length - 1, slot = hash(state) & mask;
+        while (slots[slot] != -1 && slots[slot] != state) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Removes the given state from the table if the given node is the one it
+     * maps to, shifting back the entries that probed past it.
+     */
+    private void erase (int state, int node) {
+        int mask = slots.length - 1, slot = slotOf(state);
+        if (slots[slot] != state || slotNodes[slot] != node) {
+            return;
+        }
+        for (int next = (slot + 1) & mask; slots[next] != -1; next = (next + 1) & mask) {
+            int home = hash(slots[next]) & mask;
+            // The entry at next may fill the hole unless its home lies cyclically
+            // after the hole and no later than next
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                slots[slot] = slots[next];
+                slotNodes[slot] = slotNodes[next];
+                slot = next;
+            }
+        }
+        slots[slot] = -1;
+    }
+
+    private static int hash (int state) {
+        state *= 0x9E3779B9;
+        return state ^ state >>> 16;
+    }
+
+    private long openKey (int f, int d) {
+        return (long) f << 32 | (capacity - d);
+    }
+
+    private long leafKey (int f, int d) {
+        return (long) (INFINITY - f) << 32 | d;
+    }
+
+    private boolean isGoal (int state) {
+        return (state & 1) == 1 && problem.getCell(state >>> 1) == MazeProblem.GOAL;
+    }
+
+    /**
+     * @return A consistent lower bound on the cost from the given state to a goal,
+     * having collected the key along the way
+     */
+    private int estimate (int state) {
+        probe.col = (state >>> 1) % cols;
+        probe.row = (state >>> 1) / cols;
+        boolean keyObtained = (state & 1) == 1;
+        return Pathfinder.manhattanH(keyObtained, problem.GOAL_STATE, problem.KEY_STATE, probe)
+               + (keyObtained ? 0 : keyToGoal);
+    }
+
+    /**
+     * Gets the path to the given goal node along its ancestors, which are always
+     * in the tree.
+     */
+    private ArrayList<String> getSolution (int node) {
+        ArrayList<String> solution = new ArrayList<String>(depth[node]);
+        for (; parent[node] >= 0; node = parent[node]) {
+            int diff = (stateOf[node] >>> 1) - (stateOf[parent[node]] >>> 1);
+            solution.add(MazeProblem.ACTIONS[diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3]);
+        }
+        Collections.reverse(solution);
+        return solution;
+    }
+}
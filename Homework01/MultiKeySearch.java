@@ -0,0 +1,377 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A* over the (cell, collected keys) states of a MazeProblem with several keys,
+ * all of which must be collected, in any order, before reaching a goal. The
+ * collected keys are a bitmask, so a maze may hold at most MAX_KEYS of them.<br>
+ * Only a sliver of the cells * 2^keys states is ever reached, so rather than
+ * arrays over all of them, each state reached is given a dense id by an
+ * open-addressing table of primitive longs, and its cost and parent are kept in
+ * arrays over the ids, grown as needed.<br>
+ * The heuristic is the exact cost from the cell to the nearest key still to be
+ * collected, plus the weight of a minimum spanning tree over the remaining keys
+ * and the goals (taken as one node), where each edge weighs the cheaper of the
+ * exact costs between its ends in either direction. Any path from the cell must
+ * reach some remaining key first, and then visit the rest and end on a goal,
+ * which spans them; the bound is consistent, and the spanning tree of each set
+ * of remaining keys is computed once. Every key costs one int per cell, for its
+ * exact cost from every cell.
+ */
+class MultiKeySearch {
+
+    static final int MAX_KEYS = 30;
+
+    private static final int INFINITY = Integer.MAX_VALUE, UNREACHABLE = DistanceField.UNREACHABLE;
+
+    // Spanning trees are memoized in an array over every set of keys up to
+    // this many keys, and computed afresh for each state beyond it
+    private static final int MEMO_KEYS = 20;
+
+    private final MazeProblem problem;
+    private final SearchListener listener;
+    private final int cols, keys, allKeys;
+
+    // toKey[k][cell] is the exact cost from the cell to key k, and toGoal[cell]
+    // to its nearest goal; between[i][j] is the cheaper of the exact costs from
+    // key i to key j and back, and between[i][keys] from key i to a goal
+    private final int[][] toKey, between;
+    private final int[] toGoal, treeMemo, neighbours = new int[4];
+
+    // State table: the id of state (cell, mask) is found by hashing the long
+    // mask << 32 | cell; ids index the arrays after it
+    private long[] slots;
+    private int[] slotIds, cellOf, maskOf, gCost, parent;
+    private int size;
+    private final BitSet closed = new BitSet();
+
+    // Metrics of the search under way; the first search's time before the keys
+    // counts from the constructor, so that it includes building the heuristic
+    private long startTime, keyTime, expanded, generated, peakFrontier, reexpansions;
+    private int initialEstimate;
+
+    /**
+     * Constructs a new MultiKeySearch, computing the exact cost from every cell
+     * to each key and to the nearest goal.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @throws IllegalArgumentException If the maze has more than MAX_KEYS keys
+     */
+    MultiKeySearch (MazeProblem problem) {
+        this(problem, null);
+    }
+
+    /**
+     * Constructs a new MultiKeySearch that reports the metrics of every search to
+     * the given listener, the first state holding every key standing in for the
+     * key; its REEXPANSIONS are the stale frontier entries skipped.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param listener The SearchListener to report to, or null for none
+     * @throws IllegalArgumentException If the maze has more than MAX_KEYS keys
+     */
+    MultiKeySearch (MazeProblem problem, SearchListener listener) {
+        this.startTime = listener == null ? 0 : System.nanoTime();
+        this.problem = problem;
+        this.listener = listener;
+        this.cols = problem.getCols();
+        this.keys = problem.KEY_STATES.size();
+        if (keys > MAX_KEYS) {
+            throw new IllegalArgumentException("Maze has more than " + MAX_KEYS + " keys");
+        }
+        this.allKeys = (1 << keys) - 1;
+
+        int[] keyCells = new int[keys], goals = new int[problem.GOAL_STATE.size()];
+        for (int k = 0; k < keys; k++) {
+            keyCells[k] = problem.KEY_STATES.get(k).row * cols + problem.KEY_STATES.get(k).col;
+        }
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = problem.GOAL_STATE.get(i).row * cols + problem.GOAL_STATE.get(i).col;
+        }
+        this.toKey = new int[keys][];
+        for (int k = 0; k < keys; k++) {
+            toKey[k] = DistanceField.reverse(problem, new int[] {keyCells[k]});
+        }
+        this.toGoal = DistanceField.reverse(problem, goals);
+        this.between = new int[keys][keys + 1];
+        for (int i = 0; i < keys; i++) {
+            for (int j = 0; j < keys; j++) {
+                between[i][j] = Math.min(toKey[j][keyCells[i]], toKey[i][keyCells[j]]);
+            }
+            between[i][keys] = toGoal[keyCells[i]];
+        }
+        this.treeMemo = keys <= MEMO_KEYS ? new int[1 << keys] : null;
+        if (treeMemo != null) {
+            Arrays.fill(treeMemo, -1);
+        }
+    }
+
+    /**
+     * Finds an optimal path from the given state, through every key, to any goal.
+     *
+     * @param from The MazeState (col, row) to start from, or null if there is none
+     * @return An ArrayList of Strings representing actions that lead from the given
+     * state to the goal state, of the format: ["R", "R", "L", ...], or null if there
+     * is none
+     */
+    ArrayList<String> solve (MazeState from) {
+        CompactPath path = solveCompact(from);
+        return path == null ? null : path.toList();
+    }
+
+    /**
+     * Finds an optimal path as in solve, in compact form.
+     *
+     * @param from The MazeState (col, row) to start from, or null if there is none
+     * @return The actions that lead from the given state to the goal state, or null
+     * if there is none
+     */
+    CompactPath solveCompact (MazeState from) {
+        expanded = generated = peakFrontier = reexpansions = keyTime = 0;
+        initialEstimate = 0;
+        closed.clear();
+        int end = search(from);
+        if (listener != null) {
+            long endTime = System.nanoTime();
+            keyTime = keyTime == 0 ? endTime : keyTime;
+            listener.searchFinished(new SearchMetrics(expanded, generated, peakFrontier, closed.cardinality(),
+                reexpansions, initialEstimate, end < 0 ? -1 : gCost[end], keyTime - startTime, endTime - keyTime));
+            startTime = endTime;
+        }
+        return end < 0 ? null : getSolution(end);
+    }
+
+    /**
+     * Runs the search for solveCompact, counting its metrics.
+     *
+     * @return The id of the goal state reached, or -1 if there is none
+     */
+    private int search (MazeState from) {
+        if (from == null) {
+            return -1;
+        }
+        int startCell = from.row * cols + from.col;
+        int startMask = collect(0, startCell), startH = heuristic(startCell, startMask);
+        if (startH == INFINITY) {
+            return -1;
+        }
+        initialEstimate = startH;
+        resetTable(1 << 10);
+        int start = idOf(startCell, startMask);
+        gCost[start] = 0;
+        parent[start] = -1;
+
+        // Frontier entries are f << 32 | id, so a plain heap of longs orders them;
+        // an entry is stale if its state has since been closed
+        LongHeap frontier = new LongHeap();
+        frontier.push((long) startH << 32 | start);
+        while (!frontier.isEmpty()) {
+            peakFrontier = Math.max(peakFrontier, frontier.size());
+            int id = (int) frontier.pop();
+            if (closed.get(id)) {
+                reexpansions++;
+                continue;
+            }
+            closed.set(id);
+            int cell = cellOf[id], mask = maskOf[id];
+            if (listener != null && mask == allKeys && keyTime == 0) {
+                keyTime = System.nanoTime();
+            }
+            if (mask == allKeys && problem.getCell(cell) == MazeProblem.GOAL) {
+                return id;
+            }
+            expanded++;
+
+            problem.getNeighbours(cell, neighbours);
+            for (int dir = 0; dir < 4; dir++) {
+                int nextCell = neighbours[dir];
+                if (nextCell < 0) {
+                    continue;
+                }
+                int nextMask = collect(mask, nextCell), h = heuristic(nextCell, nextMask);
+                if (h == INFINITY) {
+                    continue;
+                }
+                int next = idOf(nextCell, nextMask), g = gCost[id] + problem.getCost(nextCell);
+                if (!closed.get(next) && g < gCost[next]) {
+                    gCost[next] = g;
+                    parent[next] = id;
+                    frontier.push((long) (g + h) << 32 | next);
+                    generated++;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The mask after moving onto the given cell with the given mask
+     */
+    private int collect (int mask, int cell) {
+        int key = problem.getKeyNumber(cell);
+        return key < 0 ? mask : mask | 1 << key;
+    }
+
+    /**
+     * @return A consistent lower bound on the cost from the cell to a goal, having
+     * collected every key missing from the mask, or INFINITY if there is none
+     */
+    private int heuristic (int cell, int mask) {
+        if (mask == allKeys) {
+            return toGoal[cell] == UNREACHABLE ? INFINITY : toGoal[cell];
+        }
+        int nearest = INFINITY;
+        for (int k = 0; k < keys; k++) {
+            if ((mask & 1 << k) == 0) {
+                if (toKey[k][cell] == UNREACHABLE) {
+                    return INFINITY;
+                }
+                nearest = Math.min(nearest, toKey[k][cell]);
+            }
+        }
+        int tree = spanningTree(mask);
+        return tree == INFINITY ? INFINITY : nearest + tree;
+    }
+
+    /**
+     * @return The weight of a minimum spanning tree over the keys missing from the
+     * mask and the goals, by Prim's algorithm, or INFINITY if some are unconnected
+     */
+    private int spanningTree (int mask) {
+        if (treeMemo != null && treeMemo[mask] >= 0) {
+            return treeMemo[mask];
+        }
+        // The goals are node number keys, and the tree is grown out of them
+        int[] reach = new int[keys];
+        int left = 0, weight = 0;
+        for (int k = 0; k < keys; k++) {
+            if ((mask & 1 << k) == 0) {
+                reach[left++] = k;
+            }
+        }
+        int[] nodes = Arrays.copyOf(reach, left);
+        for (int i = 0; i < left; i++) {
+            reach[i] = between[nodes[i]][keys];
+        }
+        while (left > 0) {
+            int best = 0;
+            for (int i = 1; i < left; i++) {
+                if (reach[i] < reach[best]) {
+                    best = i;
+                }
+            }
+            if (reach[best] == UNREACHABLE) {
+                weight = INFINITY;
+                break;
+            }
+            weight += reach[best];
+            int added = nodes[best];
+            left--;
+            nodes[best] = nodes[left];
+            reach[best] = reach[left];
+            for (int i = 0; i < left; i++) {
+                reach[i] = Math.min(reach[i], between[added][nodes[i]]);
+            }
+        }
+        if (treeMemo != null) {
+            treeMemo[mask] = weight;
+        }
+        return weight;
+    }
+
+    /**
+     * Empties the state table, sizing it for the given number of states.
+     */
+    private void resetTable (int capacity) {
+        slots = new long[capacity * 2];
+        slotIds = new int[capacity * 2];
+        Arrays.fill(slots, -1);
+        cellOf = new int[capacity];
+        maskOf = new int[capacity];
+        gCost = new int[capacity];
+        parent = new int[capacity];
+        size = 0;
+        closed.clear();
+    }
+
+    /**
+     * @return The id of the state (cell, mask), giving it the next id, with an
+     * infinite cost, if it has none yet
+     */
+    private int idOf (int cell, int mask) {
+        long state = (long) mask << 32 | cell;
+        int slot = hash(state) & (slots.length - 1);
+        while (slots[slot] != -1) {
+            if (slots[slot] == state) {
+                return slotIds[slot];
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        if (size == cellOf.length) {
+            grow();
+            return idOf(cell, mask);
+        }
+        slots[slot] = state;
+        slotIds[slot] = size;
+        cellOf[size] = cell;
+        maskOf[size] = mask;
+        gCost[size] = INFINITY;
+        return size++;
+    }
+
+    /**
+     * Doubles the state table, keeping every id; the slots stay at most half full.
+     */
+    private void grow () {
+        int capacity = cellOf.length * 2;
+        cellOf = Arrays.copyOf(cellOf, capacity);
+        maskOf = Arrays.copyOf(maskOf, capacity);
+        gCost = Arrays.copyOf(gCost, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        slots = new long[capacity * 2];
+        slotIds = new int[capacity * 2];
+        Arrays.fill(slots, -1);
+        for (int id = 0; id < size; id++) {
+            long state = (long) maskOf[id] << 32 | cellOf[id];
+            int slot = hash(state) & (slots.length - 1);
+            while (slots[slot] != -1) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = state;
+            slotIds[slot] = id;
+        }
+    }
+
+    /**
+     * @return A well-mixed hash of the state, from the finalizer of MurmurHash3
+     */
+    private static int hash (long state) {
+        state ^= state >>> 33;
+        state *= 0xff51afd7ed558ccdL;
+        state ^= state >>> 33;
+        return (int) state;
+    }
+
+    /**
+     * Gets the path taken to reach the state with the given id, from earliest
+     * to most recent.
+     */
+    private CompactPath getSolution (int end) {
+        int length = 0;
+        for (int id = end; parent[id] >= 0; id = parent[id]) {
+            length++;
+        }
+        CompactPath path = new CompactPath(length);
+        for (int id = end; parent[id] >= 0; id = parent[id]) {
+            int diff = cellOf[id] - cellOf[parent[id]];
+            path.set(--length, diff == -cols ? 0 : diff == cols ? 1 : diff == -1 ? 2 : 3);
+        }
+        return path;
+    }
+}
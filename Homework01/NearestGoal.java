@@ -0,0 +1,61 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+/**
+ * The Manhattan distance from any cell of a MazeProblem to its nearest goal,
+ * walls and mud notwithstanding. With few goals it is taken over every goal;
+ * with more, it may instead be read from a distance transform over every cell
+ * (see DistanceField.manhattan), which MazeProblem builds once, on first use,
+ * and keeps until a cell changes (see MazeProblem.getNearestGoal).
+ */
+class NearestGoal {
+
+    // With more goals than this, the distance is read from the transform, if
+    // there is one, rather than taken over every goal
+    static final int SCAN_GOALS = 8;
+
+    private final int cols;
+    private final int[] goalCols, goalRows;
+
+    // The distance from every cell to its nearest goal, or null if the goals are
+    // scanned instead
+    private final int[] transform;
+
+    /**
+     * Constructs a new NearestGoal.
+     *
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param transform Boolean of whether or not to build the transform, at an int
+     * per cell, if there are more than SCAN_GOALS goals
+     */
+    NearestGoal (MazeProblem problem, boolean transform) {
+        this.cols = problem.getCols();
+        this.goalCols = new int[problem.GOAL_STATE.size()];
+        this.goalRows = new int[goalCols.length];
+        int[] goals = new int[goalCols.length];
+        for (int i = 0; i < goals.length; i++) {
+            goalCols[i] = problem.GOAL_STATE.get(i).col;
+            goalRows[i] = problem.GOAL_STATE.get(i).row;
+            goals[i] = goalRows[i] * cols + goalCols[i];
+        }
+        this.transform = transform && goals.length > SCAN_GOALS ? DistanceField.manhattan(problem, goals) : null;
+    }
+
+    /**
+     * @param cell Row-major index of a cell
+     * @return The Manhattan distance from the cell to its nearest goal, or
+     * DistanceField.UNREACHABLE if there are no goals
+     */
+    int distance (int cell) {
+        if (transform != null) {
+            return transform[cell];
+        }
+        int col = cell % cols, row = cell / cols, best = DistanceField.UNREACHABLE;
+        for (int i = 0; i < goalCols.length; i++) {
+            best = Math.min(best, Math.abs(goalCols[i] - col) + Math.abs(goalRows[i] - row));
+        }
+        return best;
+    }
+}
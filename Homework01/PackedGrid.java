@@ -0,0 +1,30 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+/**
+ * MazeGrid held on heap, 2 bits per cell and 32 cells per long, in row-major order.
+ */
+class PackedGrid implements MazeGrid {
+
+    private final long[] words;
+
+    /**
+     * Constructs a new PackedGrid with every cell OPEN.
+     *
+     * @param cells The number of cells in the grid
+     */
+    PackedGrid (long cells) {
+        this.words = new long[(int) ((cells + 31) >>> 5)];
+    }
+
+    public int get (int index) {
+        return (int) (words[index >>> 5] >>> ((index & 31) << 1)) & 3;
+    }
+
+    public void set (int index, int code) {
+        int shift = (index & 31) << 1;
+        words[index >>> 5] = words[index >>> 5] & ~(3L << shift) | (long) code << shift;
+    }
+}
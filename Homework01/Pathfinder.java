@@ -4,8 +4,11 @@
 
 //package pathfinder.informed;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 
 
@@ -14,81 +17,360 @@ import java.util.*;
  */
 public class Pathfinder {
     
-    private static HashSet<MazeState> graveyard = new HashSet<>();
+    /**
+     * Data structures that solveIndexed can hold its frontier in: a binary heap,
+     * or Dial's bucket queue, which exploits the small integer step costs of
+     * the maze for O(1) push and pop.
+     */
+    public enum Frontier { BINARY_HEAP, BUCKET_QUEUE }
     
     
     /**
      * Given a MazeProblem, which specifies the actions and transitions available in the
      * search, returns a solution to the problem as a sequence of actions that leads from
-     * the initial to a goal state.
+     * the initial to a goal state.<br>
+     * A maze with several keys, all of which must be collected, is searched over
+     * (cell, collected keys) states by MultiKeySearch, as are those given to the
+     * other modes below.
      * 
      * @param problem A MazeProblem that specifies the maze, actions, transitions.
      * @return An ArrayList of Strings representing actions that lead from the initial to
      * the goal state, of the format: ["R", "R", "L", ...]
      */
     public static ArrayList<String> solve (MazeProblem problem) {
+        return solve(problem, (SearchListener) null);
+    }
+    
+    /**
+     * Solves the given MazeProblem as in solve, reporting the search's metrics to
+     * the given listener once it ends, whether or not it finds a path; mazes with
+     * several keys are searched by MultiKeySearch, which reports likewise.<br>
+     * This is the search of solveIndexed, with its frontier in a binary heap with
+     * decrease-key, so that each state is queued at most once: a cheaper path to
+     * a queued state lowers its key in place rather than queueing it again.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param listener The SearchListener to report to, or null for none
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solve (MazeProblem problem, SearchListener listener) {
+        return new GridSearch(Frontier.BINARY_HEAP, listener).solve(problem);
+    }
+    
+    /**
+     * Solves the given MazeProblem within a time budget, with Anytime Repairing A*:
+     * a first path is found quickly by A* with a heavily inflated Manhattan heuristic,
+     * and then the weight is lowered step by step, reusing the search effort of each
+     * step in the next, until the budget runs out or the path is proven optimal. The
+     * first path is searched for past the budget if need be.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param budget The time to spend improving the path
+     * @return A SearchResult holding the best path found, its cost, and a proven bound
+     * on its sub-optimality, or null if there is none
+     */
+    public static SearchResult solve (MazeProblem problem, Duration budget) {
+        long deadline = System.nanoTime() + budget.toNanos();
+        if (problem.KEY_STATES.size() > 1) {
+            ArrayList<String> solution = solve(problem);
+            return solution == null ? null : new SearchResult(solution, problem.testSolution(solution)[1], 1);
+        }
+        return new AnytimeSearch(problem).solve(deadline);
+    }
+    
+    /**
+     * Solves the given MazeProblem by the search behind solve, in which every state
+     * is encoded as the int row * cols + col, so that the closed set and g-costs
+     * are primitive arrays and the search loop allocates no MazeStates.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solveIndexed (MazeProblem problem) {
+        return solveIndexed(problem, Frontier.BINARY_HEAP);
+    }
+    
+    /**
+     * Solves the given MazeProblem as in solveIndexed, holding the frontier in the
+     * given data structure.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param frontier The data structure to hold the frontier in
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solveIndexed (MazeProblem problem, Frontier frontier) {
+        return new GridSearch(frontier).solve(problem);
+    }
+    
+    /**
+     * Solves the given MazeProblem as in solveIndexed, reporting the search's metrics
+     * to the given listener once it ends.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param frontier The data structure to hold the frontier in
+     * @param listener The SearchListener to report to, or null for none
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solveIndexed (MazeProblem problem, Frontier frontier, SearchListener listener) {
+        return new GridSearch(frontier, listener).solve(problem);
+    }
+    
+    /**
+     * Solves the given MazeProblem as in solveIndexed, returning the path as 2-bit
+     * direction codes rather than Strings, for paths of hundreds of thousands of
+     * steps; MazeProblem.testSolution accepts it as is.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return A CompactPath of the actions that lead from the initial to the goal
+     * state, or null if there is none
+     */
+    public static CompactPath solveCompact (MazeProblem problem) {
+        return new GridSearch(Frontier.BINARY_HEAP).solveCompact(problem);
+    }
+    
+    /**
+     * Solves every one of the given, independent MazeProblems as in solveIndexed,
+     * spreading them across the common ForkJoinPool. Each worker solves a contiguous
+     * run of the problems with a single GridSearch, reusing its frontier, visited
+     * and heuristic buffers from one problem to the next; no state is shared between
+     * workers.
+     * 
+     * @param problems The MazeProblems to solve
+     * @return A List holding, at the index of each problem, its solution as in
+     * solveIndexed, or null if it has none
+     */
+    public static List<ArrayList<String>> solveAll (List<MazeProblem> problems) {
+        List<ArrayList<String>> solutions = new ArrayList<ArrayList<String>>(Collections.nCopies(problems.size(), null));
+        int batch = Math.max(1, problems.size() / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        ForkJoinPool.commonPool().invoke(new SolveTask(problems, solutions, 0, problems.size(), batch));
+        return solutions;
+    }
+    
+    /**
+     * Solves problems[from .. to) into the matching slots of solutions, splitting the
+     * range in half until it is no larger than the batch size.
+     */
+    private static class SolveTask extends RecursiveAction {
         
-        HashSet<MazeState> graveyard = new HashSet<>();
-        PriorityQueue<SearchTreeNode> currentFrontier = new PriorityQueue<SearchTreeNode>(50, new Comparator<SearchTreeNode>() 
-        {
-            public int compare(SearchTreeNode node1, SearchTreeNode node2) {
-                Integer one = new Integer(node1.aStarCost);
-                Integer two = new Integer(node2.aStarCost);
-                return one.compareTo(two); 
-            }
-        });
+        private static final long serialVersionUID = 1L;
         
-        boolean keyObtained = false;
-        currentFrontier.add(new SearchTreeNode(problem.INITIAL_STATE, null, null, 0, manhattanH(keyObtained, problem.GOAL_STATE, problem.KEY_STATE, problem.INITIAL_STATE)));
-        graveyard.add(problem.INITIAL_STATE);
+        private final List<MazeProblem> problems;
+        private final List<ArrayList<String>> solutions;
+        private final int from, to, batch;
         
+        SolveTask (List<MazeProblem> problems, List<ArrayList<String>> solutions, int from, int to, int batch) {
+            this.problems = problems;
+            this.solutions = solutions;
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+        }
         
-        while(currentFrontier.size() > 0) {
-        /* DEBUG
-            PriorityQueue<SearchTreeNode> copy = new PriorityQueue<>(currentFrontier);
-            System.out.println("\nFront of Queue:  ");
-            while(copy.peek() != null) {
-                SearchTreeNode value = copy.remove();
-                System.out.print( "(" + value.aStarCost + ", (" + value.state.row + "," + value.state.col + ")) ");
-            }
-             System.out.println(); 
-          DEBUG */
-
-            SearchTreeNode temp = currentFrontier.remove();
-            graveyard.add(temp.state);
-            
-            if(!keyObtained)  {
-                if(canCollectKey(temp.state, problem.KEY_STATE)) {
-                    graveyard.clear();
-                    currentFrontier.clear();
-                    keyObtained = true;
-                }
+        @Override
+        protected void compute () {
+            if (to - from > batch) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SolveTask(problems, solutions, from, mid, batch),
+                          new SolveTask(problems, solutions, mid, to, batch));
+                return;
             }
-            
-            if(problem.isGoal(temp.state) && keyObtained) {
-                return getSolution(temp, problem);
+            GridSearch search = new GridSearch(Frontier.BINARY_HEAP);
+            for (int i = from; i < to; i++) {
+                solutions.set(i, search.solve(problems.get(i)));
             }
-            
-            Map<String,MazeState> transitions = problem.getTransitions(temp.state);
-            //DEBUG
-            //System.out.println("\n   Expanding (" + temp.state.row + "," + temp.state.col +")\n");
-            //DEBUG
-            for(Map.Entry<String, MazeState> action : transitions.entrySet()) {
-       
-                SearchTreeNode generatedChild = new SearchTreeNode
-                    (action.getValue(),action.getKey(),temp, temp.history + problem.getCost(action.getValue()) , 
-                     manhattanH(keyObtained, problem.GOAL_STATE, problem.KEY_STATE, action.getValue()));
-                    
-                if(!graveyard.contains(generatedChild.state)) {
-                    //DEBUG
-                    //System.out.println("Test " + action.getKey() + " " + action.getValue().row + " " + action.getValue().col + " " + generatedChild.history + " " + generatedChild.aStarCost + " ");
-                    //DEBUG
-                    currentFrontier.add(generatedChild);
+        }
+    }
+    
+    /**
+     * Solves the given MazeProblem with hierarchical pathfinding (HPA*): the maze is
+     * split into square clusters, an abstract graph of the entrances between them is
+     * searched, and only the clusters along the abstract path are refined into steps.
+     * The graph is built on the first query for a cluster size (see
+     * MazeProblem.precomputeHierarchy) and kept on the problem until a cell changes,
+     * so later queries only search it. Suited to very large mazes, at the price of
+     * paths that may be slightly longer than optimal.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param clusterSize The width and height of each cluster, in cells
+     * @return A SearchResult holding the actions that lead from the initial to the goal
+     * state and their cost, or null if there is none; its SUBOPTIMALITY is only the
+     * cost over the Manhattan distance through the key to the nearest goal, a true
+     * but loose ratio rather than a bound HPA* guarantees
+     */
+    public static SearchResult solveHierarchical (MazeProblem problem, int clusterSize) {
+        return problem.INITIAL_STATE == null ? null : solveHierarchical(problem, problem.INITIAL_STATE, clusterSize);
+    }
+    
+    /**
+     * Solves the given MazeProblem as in solveHierarchical, from any starting cell,
+     * reusing the hierarchy built for earlier queries with the same cluster size.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param start The MazeState (col, row) to start from in place of the initial state
+     * @param clusterSize The width and height of each cluster, in cells
+     * @return A SearchResult, as in solveHierarchical, or null if there is no path
+     */
+    public static SearchResult solveHierarchical (MazeProblem problem, MazeState start, int clusterSize) {
+        if (problem.KEY_STATES.size() > 1) {
+            ArrayList<String> solution = new MultiKeySearch(problem).solve(start);
+            return solution == null ? null : new SearchResult(solution, problem.testSolution(start, solution)[1], 1);
+        }
+        return problem.getHierarchy(clusterSize).solve(start);
+    }
+    
+    /**
+     * Routes many agents through the given MazeProblem at once, each from its own
+     * start through the key to a goal, where it leaves the maze, without any two
+     * ever on one cell at one tick or swapping cells in one. Agents plan in turn,
+     * by Windowed Hierarchical Cooperative A* over (cell, tick) states against a
+     * shared reservation table, and replan every half window; an agent may wait
+     * in place, as the action "W", for the cost of a step onto open floor. Agents
+     * only make way for each other when a window is long enough to see the way
+     * past, and those still deadlocked when no agent is making progress, as in
+     * the one-cell corridors of a perfect maze, are given no path.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions,
+     * with at most one key; its initial state is not used
+     * @param starts The MazeState (col, row) each agent starts on, no two the same
+     * @param window The number of ticks each agent plans ahead
+     * @return A List holding, for each agent in the order of the starts, the actions
+     * that lead it from its start to a goal, of the format: ["R", "W", "L", ...], or
+     * null if it could not reach one
+     * @throws IllegalArgumentException If the maze has several keys, the window is
+     * not positive, or a start is off the maze, on a wall, or shared by two agents
+     */
+    public static List<ArrayList<String>> solveCooperative (MazeProblem problem, List<MazeState> starts, int window) {
+        return new CooperativeSearch(problem, starts, window).solve();
+    }
+    
+    /**
+     * Solves the given MazeProblem with SMA* under a fixed memory ceiling, for
+     * mazes too large for the A* searches to hold every state they reach: the
+     * search tree is never let grow past the given number of nodes, the worst
+     * leaves being forgotten to make room and searched again only once they may
+     * hold the cheapest path. With room for every state reached, this is A*;
+     * with less, time grows as more of the tree must be searched again.<br>
+     * A maze in which no goal can be reached through the key at all is found out
+     * at once, by a flood fill at one bit per cell. The worst case left is a goal
+     * that can be reached, but only by paths no shorter than the budget allows,
+     * or only with the budget well below the number of states reached: SMA*
+     * cannot tell a state it has forgotten from a new one, so it then searches
+     * every path within its cost limit, in time exponential in the budget.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions,
+     * with at most one key
+     * @param nodeBudget The most nodes the search tree may hold, at about 90 bytes
+     * each; the path found is the cheapest of fewer steps than this, so optimal
+     * whenever an optimal path is that short
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     * @throws IllegalArgumentException If the maze has several keys, whose search
+     * (see MultiKeySearch) keeps every state it reaches and so cannot be bounded
+     */
+    public static ArrayList<String> solveBounded (MazeProblem problem, int nodeBudget) {
+        if (problem.KEY_STATES.size() > 1) {
+            throw new IllegalArgumentException("Memory-bounded search supports at most one key");
+        }
+        return new MemoryBoundedSearch(problem, nodeBudget).solve();
+    }
+    
+    /**
+     * Solves the given MazeProblem with Jump Point Search, which jumps straight
+     * across open floor and only expands the cells where a path may need to turn,
+     * falling back to ordinary expansion next to mud.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solveJumpPoint (MazeProblem problem) {
+        if (problem.KEY_STATES.size() > 1) {
+            return solve(problem);
+        }
+        return new JumpPointSearch(problem).solve();
+    }
+    
+    /**
+     * Solves the given MazeProblem with bidirectional Dijkstra, searching forward from
+     * the initial state and backward from the key at once, and then likewise from the
+     * key and backward from every goal; suited to far-apart start and goal cells.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @return An ArrayList of Strings representing actions that lead from the initial to
+     * the goal state, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solveBidirectional (MazeProblem problem) {
+        if (problem.KEY_STATES.size() > 1) {
+            return solve(problem);
+        }
+        return new BidirectionalSearch(problem).solve();
+    }
+    
+    /**
+     * Answers a query from any starting cell of a MazeProblem whose distance fields
+     * have been precomputed (see MazeProblem.precomputeDistances, which is called here
+     * if they have not), by descending the key field to the key and then the goal
+     * field to a goal; takes time linear in the length of the path.
+     * 
+     * @param problem A MazeProblem that specifies the maze, actions, transitions.
+     * @param start The MazeState (col, row) to start from in place of the initial state
+     * @return An ArrayList of Strings representing actions that lead from start through
+     * the key to a goal, of the format: ["R", "R", "L", ...], or null if there is none
+     */
+    public static ArrayList<String> solveFrom (MazeProblem problem, MazeState start) {
+        if (problem.KEY_STATES.size() > 1) {
+            return new MultiKeySearch(problem).solve(start);
+        }
+        MazeProblem.Distances distances = problem.getDistances();
+        if (problem.KEY_STATE == null) {
+            return null;
+        }
+        int cell = index(problem, start), key = index(problem, problem.KEY_STATE);
+        if (distances.toKey[cell] == DistanceField.UNREACHABLE ||
+            distances.toGoal[key] == DistanceField.UNREACHABLE) {
+            return null;
+        }
+        ArrayList<String> solution = new ArrayList<String>();
+        descend(problem, distances.toKey, cell, solution);
+        descend(problem, distances.toGoal, key, solution);
+        return solution;
+    }
+    
+    /**
+     * Follows a distance field downhill from the given cell to where it reaches 0,
+     * stepping each time onto a neighbour whose cost plus distance accounts exactly
+     * for the distance of the current cell.
+     * @param MazeProblem problem               The problem the field was computed over
+     * @param int[] field                       The distance field to descend
+     * @param int cell                          Row-major index of the cell to start from
+     * @param ArrayList<String> solution        The actions taken, which are appended to
+    */
+    private static void descend(MazeProblem problem, int[] field, int cell, ArrayList<String> solution) {
+        int cols = problem.getCols();
+        int dist = field[cell];
+        while (dist > 0) {
+            int col = cell % cols, row = cell / cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nCol = col + (dir == 2 ? -1 : dir == 3 ? 1 : 0),
+                    nRow = row + (dir == 0 ? -1 : dir == 1 ? 1 : 0);
+                if (!problem.inBounds(nCol, nRow)) {
+                    continue;
+                }
+                int next = nRow * cols + nCol;
+                int nextDist = field[next];
+                if (problem.getCell(next) != MazeProblem.WALL && nextDist != DistanceField.UNREACHABLE &&
+                    nextDist + problem.getCost(next) == dist) {
+                    solution.add(MazeProblem.ACTIONS[dir]);
+                    cell = next;
+                    dist = nextDist;
+                    break;
                 }
             }
         }
-        // Should never get here, but just return null to make the compiler happy
-        return null; 
     }
     
     /**
@@ -112,11 +394,11 @@ public class Pathfinder {
      * @return int The number of uniform cost movements away from the nearest goal state.
     */
     public static int goalManhattanH(ArrayList<MazeState> goalStates, MazeState state) { 
-        PriorityQueue<Integer> sorter = new PriorityQueue<Integer>();
+        int nearest = Integer.MAX_VALUE;
         for(int i = 0; i < goalStates.size(); i++) {
-            sorter.add(Math.abs(goalStates.get(i).row - state.row) + Math.abs(goalStates.get(i).col - state.col));
+            nearest = Math.min(nearest, Math.abs(goalStates.get(i).row - state.row) + Math.abs(goalStates.get(i).col - state.col));
         }
-        return sorter.peek(); 
+        return nearest; 
     }
     
     /**
@@ -143,6 +425,15 @@ public class Pathfinder {
         return false;
     }
     
+    /**
+     * @param MazeProblem problem               The problem the state belongs to
+     * @param MazeState state                   Provides current state
+     * @return int  The row-major index of the given state in the problem's maze
+    */
+    private static int index(MazeProblem problem, MazeState state) {
+        return state.row * problem.getCols() + state.col;
+    }
+    
     /**
      * Gets the path taken to reach the solution, from earliest to most recent
      * @param MazeState keyState                 Provides state of the key
@@ -150,20 +441,14 @@ public class Pathfinder {
      * @return ArrayList<String> The list of string actions taken to reach the solution
     */
     public static ArrayList<String> getSolution(SearchTreeNode goal, MazeProblem problem) {
+        // Walked from the goal back to the root, then reversed once, in linear time
         ArrayList<String> solution = new ArrayList<String>();
         SearchTreeNode currentNode = goal;
         while(currentNode.parent != null) {
-            solution.add(0, currentNode.action);
+            solution.add(currentNode.action);
             currentNode = currentNode.parent;
         }
-       /*
-        //DEBUG 
-        System.out.println();
-        for(int i = 0; i < solution.size(); i++) {
-                System.out.print(" " + solution.get(i));
-        }
-        //DEBUG
-        */ 
+        Collections.reverse(solution);
         return solution;
     }
 }
@@ -176,6 +461,7 @@ class SearchTreeNode {
     
     int aStarCost;
     int history;
+    boolean keyObtained;
     MazeState state;
     String action;
     SearchTreeNode parent;
@@ -186,13 +472,15 @@ class SearchTreeNode {
      * @param state The MazeState (col, row) that this node represents.
      * @param action The action that *led to* this state / node.
      * @param parent Reference to parent SearchTreeNode in the Search Tree.
+     * @param keyObtained Whether or not the key has been collected on the way to this node
      * @param history The int representing spent cost in nodes history
      * @param manhattan The int of  the current calculated manhattan cost
      */
-    SearchTreeNode (MazeState state, String action, SearchTreeNode parent, int history, int manhattan) {
+    SearchTreeNode (MazeState state, String action, SearchTreeNode parent, boolean keyObtained, int history, int manhattan) {
         this.state = state;
         this.action = action;
         this.parent = parent;
+        this.keyObtained = keyObtained;
         this.history = history;
         this.aStarCost = manhattan + history;
     }   
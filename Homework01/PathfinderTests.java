@@ -5,7 +5,13 @@
 
 import static org.junit.Assert.*;
 import org.junit.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Unit tests for Maze Pathfinder. Tests include completeness and
@@ -269,4 +275,920 @@ public class PathfinderTests {
         ArrayList<String> solution = Pathfinder.solve(prob);
         assertNull(solution);
     }
+    
+    @Test
+    public void testMazeProblem_packedGrid() {
+        String[] maze = {
+            "XXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX",
+            "XI..............................MGX",
+            "XK................................X",
+            "XXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        
+        // Cells on either side of a 32-cell word boundary decode correctly
+        assertEquals(3, prob.getCost(new MazeState(32, 1)));
+        assertEquals(1, prob.getCost(new MazeState(31, 1)));
+        assertTrue(prob.isGoal(new MazeState(33, 1)));
+        assertFalse(prob.isGoal(new MazeState(33, 2)));
+        assertFalse(prob.getTransitions(new MazeState(33, 2)).containsKey("D"));
+        
+        // Walking off the edge of the maze is simply not a solution
+        ArrayList<String> solution = new ArrayList<>();
+        solution.add("U");
+        solution.add("U");
+        assertEquals(0, prob.testSolution(solution)[0]);
+    }
+    
+    @Test
+    public void testSolveIndexed() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XI..MGM..X",
+            "XGM..M...X",
+            "XXXX.....X",
+            "X.K.XM...X",
+            "X........X",
+            "XXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solveIndexed(prob);
+        
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]);  // Test that result is a solution
+        assertEquals(26, result[1]); // Ensure that the solution is optimal
+        
+        String[] blocked = {
+            "XXXXXXXXXXXX",
+            "XGM.......GX",
+            "X.MMMMMMM.MM",
+            "X..........I",
+            "XXX.XXXXMXXX",
+            "X...XK..X..X",
+            "XXXXXXXXXXXX"
+        };
+        assertNull(Pathfinder.solveIndexed(new MazeProblem(blocked)));
+    }
+    
+    @Test
+    public void testIndexedMinHeap_decreaseKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(5);
+        heap.push(0, 40);
+        heap.push(1, 10);
+        heap.push(2, 30);
+        heap.push(3, 20);
+        heap.decreaseKey(2, 5);
+        
+        assertEquals(4, heap.size());
+        assertEquals(2, heap.pop());
+        assertFalse(heap.contains(2));
+        assertEquals(1, heap.pop());
+        assertEquals(3, heap.pop());
+        assertEquals(0, heap.pop());
+        assertTrue(heap.isEmpty());
+    }
+    
+    @Test
+    public void testSolveIndexed_bucketQueue() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XGM.......GX",
+            "X.MMMMMMM.MM",
+            "X..........I",
+            "XXX.XXXXMXXX",
+            "X....K.....X",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solveIndexed(prob, Pathfinder.Frontier.BUCKET_QUEUE);
+        
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]);  // Test that result is a solution
+        assertEquals(18, result[1]); // Ensure that the solution is optimal
+    }
+    
+    @Test
+    public void testKeyGoalHeuristic_consistentAtKey() {
+        String[] maze = {
+            "XXXXXXXXX",
+            "X.......X",
+            "XIMMKMMGX",
+            "X.......X",
+            "XXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        KeyGoalHeuristic heuristic = KeyGoalHeuristic.create(prob);
+        int key = 2 * prob.getCols() + 4;
+        
+        // The exact key-to-goal cost is 5, around the mud, and the estimate
+        // does not drop when the key is collected
+        assertEquals(5, heuristic.getKeyToGoal());
+        assertEquals(5, heuristic.estimate(key, true));
+        assertEquals(6, heuristic.estimate(key - 1, false));
+    }
+    
+    @Test
+    public void testSolveJumpPoint() {
+        String[] maze = {
+            "XXXXXXXXXXXXXXXXXXXX",
+            "XI.................X",
+            "X..................X",
+            "X.......XXXX.......X",
+            "X..........X.....M.X",
+            "X..........X.......X",
+            "X...K......X......GX",
+            "XXXXXXXXXXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solveJumpPoint(prob);
+        
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]);  // Test that result is a solution
+        assertEquals(30, result[1]); // Ensure that the solution is optimal
+        
+        String[] mud = {
+            "XXXXXXXXX",
+            "X.....MMX",
+            "XIMMKMMGX",
+            "X......MX",
+            "XXXXXXXXX"
+        };
+        prob = new MazeProblem(mud);
+        result = prob.testSolution(Pathfinder.solveJumpPoint(prob));
+        assertEquals(1, result[0]);
+        assertEquals(12, result[1]);
+    }
+    
+    @Test
+    public void testSolveBidirectional() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XG.MMIMMGX",
+            "XG..XXX.GX",
+            "XG.MMKMMGX",
+            "XGMM.M..GX",
+            "XXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solveBidirectional(prob);
+        
+        int[] result = prob.testSolution(solution);
+        assertEquals(1, result[0]);  // Test that result is a solution
+        assertEquals(20, result[1]); // Ensure that the solution is optimal
+        
+        String[] blocked = {
+            "XXXXXXX",
+            "XGXMMKX",
+            "XGXMM.X",
+            "XGXIM.X",
+            "XXXXXXX"
+        };
+        assertNull(Pathfinder.solveBidirectional(new MazeProblem(blocked)));
+    }
+    
+    @Test
+    public void testSolveFrom_distanceFields() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XM.......MGX",
+            "XGM....MMMMX",
+            "X......M...X",
+            "XM....KM.IXX",
+            "X........XGX",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        prob.precomputeDistances();
+        
+        // From the initial state, agrees with the full search
+        int[] result = prob.testSolution(Pathfinder.solveFrom(prob, prob.INITIAL_STATE));
+        assertEquals(1, result[0]);
+        assertEquals(12, result[1]);
+        
+        // From any other cell, is optimal with respect to a fresh problem
+        // that has its initial state there
+        String[] moved = maze.clone();
+        moved[4] = "XM....KM..XX";
+        moved[1] = "XI.......MGX";
+        MazeState start = new MazeState(1, 1);
+        result = prob.testSolution(start, Pathfinder.solveFrom(prob, start));
+        assertEquals(1, result[0]);
+        assertEquals(new MazeProblem(moved).testSolution(Pathfinder.solve(new MazeProblem(moved)))[1], result[1]);
+    }
+    
+    @Test
+    public void testSolveAll_inputOrder() {
+        String[][] mazes = {
+            {
+                "XXXXXXX",
+                "XI...KX",
+                "X.....X",
+                "X.X.XGX",
+                "XXXXXXX"
+            },
+            {
+                "XXXXXXX",
+                "XI.G..X",
+                "X.MXMGX",
+                "X.XKX.X",
+                "XXXXXXX"
+            },
+            {
+                "XXXXXXXXXX",
+                "XG.MMIM.GX",
+                "XG..XXX.GX",
+                "XG.M.KM.GX",
+                "XGM..M.MGX",
+                "XXXXXXXXXX"
+            }
+        };
+        int[] costs = {6, -1, 15};
+        List<MazeProblem> problems = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            problems.add(new MazeProblem(mazes[i % mazes.length]));
+        }
+        List<ArrayList<String>> solutions = Pathfinder.solveAll(problems);
+        
+        assertEquals(problems.size(), solutions.size());
+        for (int i = 0; i < problems.size(); i++) {
+            if (costs[i % mazes.length] < 0) {
+                assertNull(solutions.get(i));
+            } else {
+                int[] result = problems.get(i).testSolution(solutions.get(i));
+                assertEquals(1, result[0]);
+                assertEquals(costs[i % mazes.length], result[1]);
+            }
+        }
+    }
+    
+    @Test
+    public void testSolveHierarchical() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XGM.......GX",
+            "X.MMMMMMM.MM",
+            "X..........I",
+            "XXX.XXXXMXXX",
+            "X....K.....X",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        SearchResult found = Pathfinder.solveHierarchical(prob, 4);
+        
+        int[] result = prob.testSolution(found.SOLUTION);
+        assertEquals(1, result[0]);  // Test that result is a solution
+        assertEquals(result[1], found.COST);
+        assertTrue(found.COST >= 18); // Never better than optimal...
+        assertTrue(found.COST <= 18 * found.SUBOPTIMALITY); // ...and within its bound
+
+        // Later queries reuse the hierarchy, from any start...
+        MazeState start = new MazeState(3, 3);
+        found = Pathfinder.solveHierarchical(prob, start, 4);
+        result = prob.testSolution(start, found.SOLUTION);
+        assertEquals(1, result[0]);
+        assertEquals(result[1], found.COST);
+        assertTrue(found.COST >= 10);
+
+        // ...until a cell changes, when it is built again
+        prob.setCell(new MazeState(3, 4), 'X');
+        prob.setCell(new MazeState(8, 4), 'X');
+        assertNull(Pathfinder.solveHierarchical(prob, 4));
+
+        String[] blocked = {
+            "XXXXXXXXXXXX",
+            "XGM.......GX",
+            "X.MMMMMMM.MM",
+            "X..........I",
+            "XXX.XXXXMXXX",
+            "X...XK..X..X",
+            "XXXXXXXXXXXX"
+        };
+        assertNull(Pathfinder.solveHierarchical(new MazeProblem(blocked), 4));
+    }
+    
+    @Test
+    public void testMazeProblem_load() throws IOException {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XI.....KGX",
+            "X.MMXXX.XX",
+            "X..G.....X",
+            "XXXXXXXXXX"
+        };
+        // Every file is written once, before it is mapped, since a file still
+        // mapped cannot be rewritten on Windows
+        Path text = Files.createTempFile("maze", ".txt"), binary = Files.createTempFile("maze", ".bin"),
+             ragged = Files.createTempFile("maze", ".txt");
+        try {
+            Files.write(text, String.join("\r\n", maze).getBytes(StandardCharsets.US_ASCII));
+            Files.write(ragged, "XXX\nXI.X\nXXX".getBytes(StandardCharsets.US_ASCII));
+            MazeProblem prob = new MazeProblem(maze);
+            int[] expected = prob.testSolution(Pathfinder.solve(prob));
+            try (MazeProblem fromText = MazeProblem.load(text)) {
+                fromText.save(binary);
+                try (MazeProblem fromBinary = MazeProblem.load(binary)) {
+                    for (MazeProblem loaded : new MazeProblem[] {fromText, fromBinary}) {
+                        assertEquals(prob.INITIAL_STATE, loaded.INITIAL_STATE);
+                        assertEquals(prob.KEY_STATE, loaded.KEY_STATE);
+                        assertEquals(prob.GOAL_STATE, loaded.GOAL_STATE);
+                        for (int cell = 0; cell < 50; cell++) {
+                            assertEquals(prob.getCell(cell), loaded.getCell(cell));
+                        }
+                        assertArrayEquals(expected, loaded.testSolution(Pathfinder.solveIndexed(loaded)));
+                    }
+                }
+            }
+            
+            try {
+                MazeProblem.load(ragged);
+                fail("Ragged rows should be rejected");
+            } catch (IllegalArgumentException e) {}
+        } finally {
+            Files.delete(text);
+            Files.delete(binary);
+            Files.delete(ragged);
+        }
+    }
+    
+    @Test
+    public void testMazeProblem_loadTiled() throws IOException {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.....X...X",
+            "X.XXXX.X.X.X",
+            "X.X..M...XKX",
+            "X.X.XXXXXX.X",
+            "X...M....MGX",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        assertNull(prob.getTileCacheCounts());
+        Path tiled = Files.createTempFile("maze", ".tiles");
+        try {
+            // Tiles of 4 x 4 cells, the last row and column of them only partly used,
+            // with room for one row of 3 of the 6 in memory at once
+            prob.saveTiled(tiled, 4);
+            try (MazeProblem loaded = MazeProblem.loadTiled(tiled, 3)) {
+                assertArrayEquals(new long[] {0, 0}, loaded.getTileCacheCounts());
+                assertEquals(prob.INITIAL_STATE, loaded.INITIAL_STATE);
+                assertEquals(prob.KEY_STATES, loaded.KEY_STATES);
+                assertEquals(prob.GOAL_STATE, loaded.GOAL_STATE);
+                for (int cell = 0; cell < 7 * 12; cell++) {
+                    assertEquals(prob.getCell(cell), loaded.getCell(cell));
+                }
+                long[] counts = loaded.getTileCacheCounts();
+                assertEquals(7 * 12, counts[0] + counts[1]);
+                assertEquals(6, counts[1]);
+                
+                // Transitions and costs work unchanged, and tiles evicted are read again
+                assertEquals(prob.getTransitions(new MazeState(6, 3)), loaded.getTransitions(new MazeState(6, 3)));
+                assertEquals(prob.getCost(new MazeState(5, 3)), loaded.getCost(new MazeState(5, 3)));
+                int[] expected = prob.testSolution(Pathfinder.solveIndexed(prob));
+                assertArrayEquals(expected, loaded.testSolution(Pathfinder.solveIndexed(loaded)));
+                assertEquals(expected[1], Pathfinder.solve(loaded, Duration.ofSeconds(10)).COST);
+                assertTrue(loaded.getTileCacheCounts()[1] > 6);
+            }
+            
+            try {
+                prob.saveTiled(tiled, 6);
+                fail("Tile sizes that are not powers of two should be rejected");
+            } catch (IllegalArgumentException e) {}
+        } finally {
+            Files.delete(tiled);
+        }
+    }
+    
+    @Test
+    public void testIncrementalPlanner() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XI.....K.X",
+            "X.XXXX.X.X",
+            "X......XGX",
+            "XXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        IncrementalPlanner planner = new IncrementalPlanner(prob);
+        ArrayList<String> solution = planner.plan();
+        assertArrayEquals(new int[] {1, 9}, prob.testSolution(solution));
+        
+        // Walk two steps, then block the top corridor ahead; the repaired plan
+        // must go around through the bottom corridor
+        planner.move(solution.get(0));
+        planner.move(solution.get(1));
+        planner.setCell(new MazeState(4, 1), 'X');
+        MazeState position = planner.getPosition();
+        assertEquals(new MazeState(3, 1), position);
+        assertArrayEquals(new int[] {1, 15}, prob.testSolution(position, planner.plan()));
+        
+        // Mud on the detour costs more, but is still the only way
+        planner.setCell(new MazeState(3, 3), 'M');
+        assertArrayEquals(new int[] {1, 17}, prob.testSolution(position, planner.plan()));
+        
+        // Reopening the corridor makes the direct route best again
+        planner.setCell(new MazeState(4, 1), '.');
+        assertArrayEquals(new int[] {1, 7}, prob.testSolution(position, planner.plan()));
+        
+        planner.setCell(new MazeState(6, 2), 'X');
+        planner.setCell(new MazeState(4, 1), 'X');
+        assertNull(planner.plan());
+    }
+    
+    @Test
+    public void testLandmarks() throws IOException {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.X.....X.X",
+            "X..X.XXX.X.X",
+            "X.XX.X.K.XGX",
+            "X....X.XXX.X",
+            "XXXX.XM....X",
+            "XG.........X",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int[] expected = prob.testSolution(Pathfinder.solveIndexed(prob));
+        prob.precomputeLandmarks(4);
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solve(prob)));
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solveIndexed(prob)));
+        
+        // Landmarks can be saved and reused by another problem over the same maze,
+        // but not by one over a different maze
+        Path file = Files.createTempFile("landmarks", ".bin");
+        try {
+            prob.saveLandmarks(file);
+            MazeProblem reloaded = new MazeProblem(maze);
+            reloaded.loadLandmarks(file);
+            assertArrayEquals(expected, reloaded.testSolution(Pathfinder.solveJumpPoint(reloaded)));
+            
+            maze[6] = "XG....X....X";
+            try {
+                new MazeProblem(maze).loadLandmarks(file);
+                fail("Landmarks of another maze should be rejected");
+            } catch (IllegalArgumentException e) {}
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    @Test
+    public void testMultipleKeys() {
+        String[] maze = {
+            "XXXXXXXXXX",
+            "XK...I..KX",
+            "X.XXXXXX.X",
+            "X...K....X",
+            "XXXX.XXXXX",
+            "XG.......X",
+            "XXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        assertEquals(3, prob.KEY_STATES.size());
+        
+        // Every key must be collected: right to the near key, back along the top
+        // row for the far one, then across the middle row for the last
+        int[] expected = {1, 20};
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solve(prob)));
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solveIndexed(prob)));
+        
+        // A path that skips a key is no solution
+        ArrayList<String> skipsKey = new ArrayList<String>();
+        for (String action : "RRRDDLLLLDDLLL".split("")) {
+            skipsKey.add(action);
+        }
+        assertEquals(0, prob.testSolution(skipsKey)[0]);
+        
+        // A key walled off makes the maze unsolvable
+        maze[1] = "XKX..I..KX";
+        maze[2] = "XXXXXXXX.X";
+        assertNull(Pathfinder.solve(new MazeProblem(maze)));
+    }
+    
+    @Test
+    public void testSolveBounded() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.....X...X",
+            "X.XXXX.X.X.X",
+            "X.X..M...XKX",
+            "X.X.XXXXXX.X",
+            "X...M....MGX",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int[] expected = prob.testSolution(Pathfinder.solveIndexed(prob));
+        assertEquals(1, expected[0]);
+        
+        // Optimal whether the tree holds every state or only the optimal path
+        int steps = Pathfinder.solveIndexed(prob).size();
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solveBounded(prob, 1 << 10)));
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solveBounded(prob, steps + 1)));
+        
+        // No path shorter than the budget allows
+        assertNull(Pathfinder.solveBounded(prob, steps));
+        
+        maze[4] = "X.X.XXXXXXXX";
+        maze[5] = "X...M....XGX";
+        assertNull(Pathfinder.solveBounded(new MazeProblem(maze), 1 << 10));
+        
+        maze[1] = "XI.....X..KX";
+        try {
+            Pathfinder.solveBounded(new MazeProblem(maze), 1 << 10);
+            fail("Several keys cannot be searched within a budget");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+    
+    @Test(timeout = 2000)
+    public void testSolveBounded_budgetBelowPath() {
+        String[] maze = {
+            "MM.X.XX.X....MI",
+            "..X..........MM",
+            "...MM........XM",
+            ".X..MG.X.....MM",
+            "...MM.XM.......",
+            "...X......X.M.X",
+            ".XM.X..XMX...M.",
+            "..XX........X.X",
+            "...MM.X..X.X...",
+            "....KMM...X..XX",
+            "..M.XMM....X...",
+            "...MX.M.X..X.M.",
+            "..M........M.M."
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solveIndexed(prob);
+        assertEquals(26, solution.size());
+        
+        // Every path takes at least 26 steps, so no smaller budget holds one, which
+        // is found out without searching every shorter path again and again
+        assertNull(Pathfinder.solveBounded(prob, 26));
+        assertNull(Pathfinder.solveBounded(prob, 24));
+        assertNull(Pathfinder.solveBounded(prob, 20));
+        assertArrayEquals(prob.testSolution(solution), prob.testSolution(Pathfinder.solveBounded(prob, 27)));
+    }
+    
+    @Test(timeout = 2000)
+    public void testSolveBounded_goalWalledOff() {
+        String[] maze = {
+            "I.........",
+            "..........",
+            "....K.....",
+            "..........",
+            "..........",
+            "..........",
+            "..........",
+            ".......XXX",
+            ".......X..",
+            ".......X.G"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        
+        // The goal cannot be reached, which a budget of fewer nodes than there
+        // are states would otherwise prove only by searching every path there is
+        assertNull(Pathfinder.solveBounded(prob, 100));
+        assertNull(Pathfinder.solveBounded(prob, 10));
+        assertNull(Pathfinder.solveBounded(prob, 400));
+        
+        // Nor can the key, when walled off in place of the goal
+        maze[2] = "....G.....";
+        maze[9] = ".......X.K";
+        assertNull(Pathfinder.solveBounded(new MazeProblem(maze), 100));
+    }
+        
+    @Test
+    public void testSolveAnytime() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.....X...X",
+            "X.XXXX.X.X.X",
+            "X.X..M...XKX",
+            "X.X.XXXXXX.X",
+            "X...M....MGX",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int optimal = prob.testSolution(Pathfinder.solveIndexed(prob))[1];
+        
+        // Given time, the weight reaches 1 and the path is proven optimal
+        SearchResult found = Pathfinder.solve(prob, Duration.ofSeconds(10));
+        assertArrayEquals(new int[] {1, optimal}, prob.testSolution(found.SOLUTION));
+        assertEquals(optimal, found.COST);
+        assertEquals(1.0, found.SUBOPTIMALITY, 0);
+        
+        // With no time at all, the first path is still found, within its bound
+        String[] mud = new String[40];
+        mud[0] = mud[39] = "X".repeat(40);
+        for (int row = 1; row < 39; row++) {
+            mud[row] = "X" + (row % 4 == 2 ? "MMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMMM." : "......................................") + "X";
+        }
+        mud[1] = "XI" + mud[1].substring(2);
+        mud[20] = mud[20].substring(0, 20) + "K" + mud[20].substring(21);
+        mud[38] = mud[38].substring(0, 1) + "G" + mud[38].substring(2);
+        prob = new MazeProblem(mud);
+        optimal = prob.testSolution(Pathfinder.solveIndexed(prob))[1];
+        found = Pathfinder.solve(prob, Duration.ZERO);
+        int[] result = prob.testSolution(found.SOLUTION);
+        assertEquals(1, result[0]);
+        assertEquals(result[1], found.COST);
+        assertTrue(found.COST >= optimal);
+        assertTrue(found.SUBOPTIMALITY >= 1 && found.COST <= optimal * found.SUBOPTIMALITY);
+        assertEquals(optimal, Pathfinder.solve(prob, Duration.ofSeconds(10)).COST);
+        
+        maze[4] = "X.X.XXXXXXXX";
+        maze[5] = "X...M....XGX";
+        assertNull(Pathfinder.solve(new MazeProblem(maze), Duration.ofSeconds(10)));
+    }
+    
+    @Test
+    public void testSolveCooperative() {
+        String[] maze = {
+            "XXXXXXXXXXX",
+            "X....I....X",
+            "XGXXX.XXXKX",
+            "XXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        
+        // Waits stay in place, and cost as much as a step
+        ArrayList<String> waits = new ArrayList<>(List.of("D", "W", "U", "L", "L", "L", "L", "W", "L", "L", "L", "L", "D"));
+        assertArrayEquals(new int[] {1, 13}, prob.testSolution(new MazeState(9, 1), waits));
+        
+        // Head-on in a corridor, one agent must step aside into the pocket for the other
+        List<MazeState> starts = List.of(new MazeState(1, 1), new MazeState(9, 1));
+        List<ArrayList<String>> plans = Pathfinder.solveCooperative(prob, starts, 8);
+        assertCollisionFree(prob, starts, plans);
+        
+        // Forty agents across a room with a wall down its middle
+        String[] room = new String[14];
+        room[0] = room[13] = "XXXXXXXXXXXXXXXXXX";
+        for (int row = 1; row < 13; row++) {
+            room[row] = row == 6 ? "X.......K........X" : row % 5 == 0 ? "XG.......X......GX" : "X........X.......X";
+        }
+        room[1] = "XI" + room[1].substring(2);
+        prob = new MazeProblem(room);
+        List<MazeState> many = new ArrayList<>();
+        for (int row = 1; row < 13 && many.size() < 40; row++) {
+            for (int col = 2; col < 17 && many.size() < 40; col += 3) {
+                if (room[row].charAt(col) == '.') {
+                    many.add(new MazeState(col, row));
+                }
+            }
+        }
+        assertCollisionFree(prob, many, Pathfinder.solveCooperative(prob, many, 16));
+        
+        try {
+            Pathfinder.solveCooperative(prob, List.of(new MazeState(2, 2), new MazeState(2, 2)), 8);
+            fail("Two agents may not share a start");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+    
+    /**
+     * Asserts that every agent's plan is a solution from its start, and that no two
+     * agents are ever on one cell at one tick, or swap cells between ticks; agents
+     * leave the maze once their plans end.
+     */
+    private static void assertCollisionFree(MazeProblem prob, List<MazeState> starts, List<ArrayList<String>> plans) {
+        int agents = starts.size(), ticks = 0;
+        for (int i = 0; i < agents; i++) {
+            assertEquals(1, prob.testSolution(starts.get(i), plans.get(i))[0]);
+            ticks = Math.max(ticks, plans.get(i).size());
+        }
+        MazeState[][] at = new MazeState[agents][ticks + 1];
+        for (int i = 0; i < agents; i++) {
+            MazeState state = starts.get(i);
+            at[i][0] = state;
+            for (int t = 0; t < plans.get(i).size(); t++) {
+                String action = plans.get(i).get(t);
+                state = action.equals("W") ? state : prob.getTransitions(state).get(action);
+                at[i][t + 1] = state;
+            }
+        }
+        for (int t = 0; t <= ticks; t++) {
+            for (int i = 0; i < agents; i++) {
+                for (int j = i + 1; j < agents; j++) {
+                    if (at[i][t] == null || at[j][t] == null) {
+                        continue;
+                    }
+                    assertNotEquals(at[i][t], at[j][t]);
+                    if (t > 0 && at[i][t - 1] != null && at[j][t - 1] != null) {
+                        assertFalse(at[i][t].equals(at[j][t - 1]) && at[j][t].equals(at[i][t - 1]));
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testGetNeighbours() {
+        String[] maze = {
+            "XXXXX",
+            "XI.KX",
+            "X.XMX",
+            "XG..X",
+            "XXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        int[] neighbours = new int[4];
+        
+        // Directions are written in U, D, L, R order, with -1 for walls
+        assertEquals(2, prob.getNeighbours(1 * 5 + 1, neighbours));
+        assertArrayEquals(new int[] {-1, 2 * 5 + 1, -1, 1 * 5 + 2}, neighbours);
+        assertEquals(2, prob.getNeighbours(2 * 5 + 3, neighbours));
+        assertArrayEquals(new int[] {1 * 5 + 3, 3 * 5 + 3, -1, -1}, neighbours);
+        
+        // Transitions agree, in the same order
+        assertEquals(List.of("D", "R"),
+                     new ArrayList<>(prob.getTransitions(new MazeState(1, 1)).keySet()));
+        assertEquals(new MazeState(1, 2), prob.getTransitions(new MazeState(1, 1)).get("D"));
+    }
+    
+    @Test
+    public void testCompactPath() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.....X...X",
+            "X.XXXX.X.X.X",
+            "X.X..M...XKX",
+            "X.X.XXXXXX.X",
+            "X...M....MGX",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        ArrayList<String> solution = Pathfinder.solveIndexed(prob);
+        CompactPath path = Pathfinder.solveCompact(prob);
+        
+        assertEquals(solution, path.toList());
+        assertEquals(path, CompactPath.of(solution));
+        assertArrayEquals(prob.testSolution(solution), prob.testSolution(path));
+        assertEquals(1, prob.testSolution(path)[0]);
+        
+        // Runs are printed with their lengths, and paths compare by their steps
+        ArrayList<String> actions = new ArrayList<>(List.of("R", "R", "R", "R", "R", "D", "L"));
+        assertEquals("R*5,D*1,L*1", CompactPath.of(actions).toString());
+        assertEquals("", CompactPath.of(new ArrayList<String>()).toString());
+        actions.remove(6);
+        assertNotEquals(CompactPath.of(actions), CompactPath.of(solution));
+        assertEquals(0, prob.testSolution(CompactPath.of(actions))[0]);
+        
+        maze[4] = "X.X.XXXXXXXX";
+        maze[5] = "X...M....XGX";
+        assertNull(Pathfinder.solveCompact(new MazeProblem(maze)));
+    }
+    
+    @Test
+    public void testSolutions() {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.....X...X",
+            "X.XXXX.X.X.X",
+            "X.X..M...XKX",
+            "X.X.XXXXXX.X",
+            "X...M....MGX",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        CompactPath solution = Pathfinder.solveCompact(prob);
+        ArrayList<String> intoWall = new ArrayList<>(List.of("U")), noKey = new ArrayList<>(List.of("D", "D", "D", "D"));
+        
+        // Enough paths to be split across workers, each tested as testSolution would
+        List<CompactPath> paths = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            paths.add(i % 3 == 0 ? solution : CompactPath.of(i % 3 == 1 ? intoWall : noKey));
+        }
+        int[][] tested = prob.testSolutions(paths);
+        assertEquals(1000, tested[0].length);
+        for (int i = 0; i < 1000; i++) {
+            int[] expected = prob.testSolution(paths.get(i));
+            assertEquals(expected[0], tested[0][i]);
+            assertEquals(expected[1], tested[1][i]);
+        }
+        assertEquals(1, tested[0][0]);
+        assertEquals(0, tested[0][1]);
+        assertEquals(-1, tested[1][1]);
+        assertEquals(0, tested[0][2]);
+        assertEquals(4, tested[1][2]);
+        assertEquals(0, prob.testSolutions(new ArrayList<CompactPath>())[0].length);
+    }
+    
+    @Test
+    public void testGoalManhattanTransform() {
+        // Goals scattered among walls, more of them than are scanned one by one
+        String[] maze = {
+            "XXXXXXXXXXXXXXXX",
+            "XIG...X....G...X",
+            "X.XX.GX.XX.X.G.X",
+            "X..G.....M...X.X",
+            "XGX.XXXXXX.X.G.X",
+            "X...M.G..MG..K.X",
+            "XG..X....X..G..X",
+            "XXXXXXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        assertTrue(prob.GOAL_STATE.size() > 8);
+        int[] goals = new int[prob.GOAL_STATE.size()];
+        for (int i = 0; i < goals.length; i++) {
+            goals[i] = prob.GOAL_STATE.get(i).row * 16 + prob.GOAL_STATE.get(i).col;
+        }
+        int[] dist = DistanceField.manhattan(prob, goals);
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 16; col++) {
+                assertEquals(Pathfinder.goalManhattanH(prob.GOAL_STATE, new MazeState(col, row)), dist[row * 16 + col]);
+            }
+        }
+        assertEquals(DistanceField.UNREACHABLE, DistanceField.manhattan(prob, new int[0])[0]);
+        
+        // Reading the transform and scanning the goals agree, and the problem keeps
+        // its transform until a cell changes
+        NearestGoal nearest = prob.getNearestGoal(), scanned = new NearestGoal(prob, false);
+        for (int cell = 0; cell < dist.length; cell++) {
+            assertEquals(dist[cell], nearest.distance(cell));
+            assertEquals(dist[cell], scanned.distance(cell));
+        }
+        assertSame(nearest, prob.getNearestGoal());
+        prob.setCell(new MazeState(7, 3), 'M');
+        assertNotSame(nearest, prob.getNearestGoal());
+        
+        // The searches that read the transform still find the optimal path
+        int[] expected = prob.testSolution(Pathfinder.solveBounded(prob, 1 << 12));
+        assertEquals(1, expected[0]);
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solve(prob)));
+        assertArrayEquals(expected, prob.testSolution(Pathfinder.solveIndexed(prob)));
+    }
+    
+    @Test
+    public void testSearchListener() throws IOException {
+        String[] maze = {
+            "XXXXXXXXXXXX",
+            "XI.....X...X",
+            "X.XXXX.X.X.X",
+            "X.X..M...XKX",
+            "X.X.XXXXXX.X",
+            "X...M....MGX",
+            "XXXXXXXXXXXX"
+        };
+        MazeProblem prob = new MazeProblem(maze);
+        List<SearchMetrics> reported = new ArrayList<>();
+        ArrayList<String> solution = Pathfinder.solve(prob, reported::add);
+        Pathfinder.solveIndexed(prob, Pathfinder.Frontier.BUCKET_QUEUE, reported::add);
+        assertEquals(2, reported.size());
+        for (SearchMetrics metrics : reported) {
+            assertEquals(prob.testSolution(solution)[1], metrics.COST);
+            assertTrue(metrics.getHeuristicError() >= 0);
+            assertTrue(metrics.EXPANDED > 0 && metrics.GENERATED >= metrics.EXPANDED);
+            assertTrue(metrics.CLOSED > metrics.EXPANDED);
+            assertTrue(metrics.PEAK_FRONTIER > 0);
+            assertTrue(metrics.BEFORE_KEY_NANOS > 0 && metrics.AFTER_KEY_NANOS > 0);
+            assertEquals(0, metrics.REEXPANSIONS);
+        }
+        
+        // A search that finds nothing still reports
+        maze[4] = "X.X.XXXXXXXX";
+        maze[5] = "X...M....XGX";
+        reported.clear();
+        assertNull(Pathfinder.solve(new MazeProblem(maze), reported::add));
+        assertEquals(-1, reported.get(0).COST);
+        
+        // So does each search of a maze with several keys
+        String[] keys = {
+            "XXXXXXXXXX",
+            "XK...I..KX",
+            "X.XXXXXX.X",
+            "X...K....X",
+            "XXXX.XXXXX",
+            "XG.......X",
+            "XXXXXXXXXX"
+        };
+        reported.clear();
+        MazeProblem multi = new MazeProblem(keys);
+        assertEquals(20, multi.testSolution(Pathfinder.solve(multi, reported::add))[1]);
+        keys[1] = "XKX..I..KX";
+        keys[2] = "XXXXXXXX.X";
+        assertNull(Pathfinder.solveIndexed(new MazeProblem(keys), Pathfinder.Frontier.BINARY_HEAP, reported::add));
+        assertEquals(2, reported.size());
+        assertEquals(20, reported.get(0).COST);
+        assertTrue(reported.get(0).EXPANDED > 0 && reported.get(0).GENERATED >= reported.get(0).EXPANDED);
+        assertTrue(reported.get(0).CLOSED > reported.get(0).EXPANDED);
+        assertTrue(reported.get(0).getHeuristicError() >= 0);
+        assertTrue(reported.get(0).BEFORE_KEY_NANOS > 0 && reported.get(0).AFTER_KEY_NANOS > 0);
+        assertEquals(-1, reported.get(1).COST);
+        
+        // Metrics are committed to a flight recording that has enabled them
+        Path file = Files.createTempFile("search", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable("pathfinder.Search");
+            recording.start();
+            Pathfinder.solveIndexed(prob, Pathfinder.Frontier.BINARY_HEAP, SearchListener.FLIGHT_RECORDER);
+            recording.stop();
+            recording.dump(file);
+            List<jdk.jfr.consumer.RecordedEvent> events = jdk.jfr.consumer.RecordingFile.readAllEvents(file);
+            assertEquals(1, events.size());
+            assertEquals(prob.testSolution(solution)[1], events.get(0).getInt("cost"));
+        } finally {
+            Files.delete(file);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+
+/**
+ * Space-time reservations of the cells of a maze for a window of consecutive
+ * ticks, kept in a ring buffer indexed by tick: each tick has an open-addressing
+ * table from the cells reserved at it to the cell their occupant came from, which
+ * is enough to refuse both two agents on one cell and two agents swapping cells.
+ * Every tick reserved since the last clear must lie in a span of the ring's size.
+ */
+class ReservationTable {
+
+    private static final int EMPTY = -1;
+
+    private final int span, mask;
+
+    // For the tick in each slot of the ring, its table of cells and where their
+    // occupants came from
+    private final int[][] cells, from;
+
+    /**
+     * Constructs a new, empty ReservationTable.
+     *
+     * @param span The number of consecutive ticks that may be reserved at once
+     * @param perTick The most cells that will be reserved at any one tick
+     */
+    ReservationTable (int span, int perTick) {
+        this.span = span;
+        int capacity = Integer.highestOneBit(Math.max(1, perTick) * 2 - 1) * 2;
+        this.mask = capacity - 1;
+        this.cells = new int[span][capacity];
+        this.from = new int[span][capacity];
+        clear();
+    }
+
+    /**
+     * Removes every reservation.
+     */
+    void clear () {
+        for (int[] slots : cells) {
+            Arrays.fill(slots, EMPTY);
+        }
+    }
+
+    /**
+     * Reserves the cell at the given tick for an agent that came from the given
+     * cell, which is the same cell if it waited there or has just appeared.
+     *
+     * @param tick The tick to reserve the cell at
+     * @param cell The cell to reserve
+     * @param fromCell The cell the agent was on at the tick before
+     */
+    void reserve (int tick, int cell, int fromCell) {
+        int[] slots = cells[Math.floorMod(tick, span)];
+        int slot = hash(cell) & mask;
+        while (slots[slot] != EMPTY && slots[slot] != cell) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = cell;
+        from[Math.floorMod(tick, span)][slot] = fromCell;
+    }
+
+    /**
+     * @param tick The tick at which the move ends
+     * @param fromCell The cell moved from at the tick before
+     * @param toCell The cell moved to, the same cell for a wait
+     * @return Boolean of whether or not the move neither lands on a reserved cell
+     * nor swaps cells with the agent that reserved fromCell at the tick
+     */
+    boolean canMove (int tick, int fromCell, int toCell) {
+        if (find(tick, toCell) >= 0) {
+            return false;
+        }
+        int slot = find(tick, fromCell);
+        return slot < 0 || from[Math.floorMod(tick, span)][slot] != toCell;
+    }
+
+    /**
+     * @return The slot holding the cell in the table of the given tick, or -1
+     */
+    private int find (int tick, int cell) {
+        int[] slots = cells[Math.floorMod(tick, span)];
+        for (int slot = hash(cell) & mask; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (slots[slot] == cell) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static int hash (int cell) {
+        cell *= 0x9E3779B9;
+        return cell ^ cell >>> 16;
+    }
+}
@@ -0,0 +1,71 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event holding the SearchMetrics of one search, committed
+ * by SearchListener.FLIGHT_RECORDER.
+ */
+@Name("pathfinder.Search")
+@Label("Maze Search")
+@Category("Pathfinder")
+class SearchEvent extends Event {
+
+    @Label("Nodes Expanded")
+    long expanded;
+
+    @Label("Nodes Generated")
+    long generated;
+
+    @Label("Peak Frontier Size")
+    long peakFrontier;
+
+    @Label("Closed Set Size")
+    long closed;
+
+    @Label("Re-expansions")
+    long reexpansions;
+
+    @Label("Cost")
+    int cost;
+
+    @Label("Heuristic Error")
+    int heuristicError;
+
+    @Label("Before Key")
+    @Timespan(Timespan.NANOSECONDS)
+    long beforeKey;
+
+    @Label("After Key")
+    @Timespan(Timespan.NANOSECONDS)
+    long afterKey;
+
+    /**
+     * Commits the given metrics as an event, if a recording has enabled it.
+     *
+     * @param metrics The metrics of a search that has just ended
+     */
+    static void commit (SearchMetrics metrics) {
+        SearchEvent event = new SearchEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.expanded = metrics.EXPANDED;
+        event.generated = metrics.GENERATED;
+        event.peakFrontier = metrics.PEAK_FRONTIER;
+        event.closed = metrics.CLOSED;
+        event.reexpansions = metrics.REEXPANSIONS;
+        event.cost = metrics.COST;
+        event.heuristicError = metrics.getHeuristicError();
+        event.beforeKey = metrics.BEFORE_KEY_NANOS;
+        event.afterKey = metrics.AFTER_KEY_NANOS;
+        event.commit();
+    }
+}
@@ -0,0 +1,25 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+/**
+ * Receives the metrics of every search it is passed to, once the search ends.
+ * Searches given no listener keep only a few local counters and read no clock,
+ * so instrumentation costs nothing while it is off.
+ */
+public interface SearchListener {
+
+    /**
+     * Commits each search's metrics as a "pathfinder.Search" event to Java Flight
+     * Recorder, where they cost nothing unless a recording has enabled the event.
+     */
+    SearchListener FLIGHT_RECORDER = SearchEvent::commit;
+
+    /**
+     * Called once a search has ended, whether or not it found a path.
+     *
+     * @param metrics The counters and timings gathered over the search
+     */
+    void searchFinished (SearchMetrics metrics);
+}
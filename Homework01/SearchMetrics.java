@@ -0,0 +1,70 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+/**
+ * Counters and timings gathered over one search, as reported to a SearchListener.
+ */
+public class SearchMetrics {
+
+    /** Nodes taken off the frontier and expanded */
+    public final long EXPANDED;
+
+    /** Children pushed onto the frontier, or whose place in it was lowered */
+    public final long GENERATED;
+
+    /** The most nodes the frontier held at once */
+    public final long PEAK_FRONTIER;
+
+    /** States in the closed set when the search ended */
+    public final long CLOSED;
+
+    /**
+     * Nodes taken off the frontier for a state already expanded, and discarded
+     * rather than expanded again; always 0 for a search that never holds a state
+     * in its frontier twice
+     */
+    public final long REEXPANSIONS;
+
+    /** The heuristic's estimate at the initial state */
+    public final int INITIAL_ESTIMATE;
+
+    /** The cost of the path found, or -1 if there was none */
+    public final int COST;
+
+    /**
+     * Wall-clock nanoseconds spent before the first state holding the key, or
+     * every key in a maze with several, was expanded, including building the
+     * heuristic, and after it
+     */
+    public final long BEFORE_KEY_NANOS, AFTER_KEY_NANOS;
+
+    SearchMetrics (long expanded, long generated, long peakFrontier, long closed, long reexpansions,
+                   int initialEstimate, int cost, long beforeKeyNanos, long afterKeyNanos) {
+        this.EXPANDED = expanded;
+        this.GENERATED = generated;
+        this.PEAK_FRONTIER = peakFrontier;
+        this.CLOSED = closed;
+        this.REEXPANSIONS = reexpansions;
+        this.INITIAL_ESTIMATE = initialEstimate;
+        this.COST = cost;
+        this.BEFORE_KEY_NANOS = beforeKeyNanos;
+        this.AFTER_KEY_NANOS = afterKeyNanos;
+    }
+
+    /**
+     * @return How far the heuristic at the initial state fell short of the cost
+     * actually found, i.e., COST - INITIAL_ESTIMATE, or -1 if there was no path
+     */
+    public int getHeuristicError () {
+        return COST < 0 ? -1 : COST - INITIAL_ESTIMATE;
+    }
+
+    public String toString () {
+        return "(expanded " + EXPANDED + ", generated " + GENERATED + ", peak frontier " + PEAK_FRONTIER +
+               ", closed " + CLOSED + ", re-expansions " + REEXPANSIONS + ", cost " + COST +
+               ", heuristic error " + getHeuristicError() + ", " + BEFORE_KEY_NANOS / 1000 + "us before key, " +
+               AFTER_KEY_NANOS / 1000 + "us after)";
+    }
+}
@@ -0,0 +1,38 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+
+/**
+ * Solution found by a search that is not guaranteed to be optimal, together with
+ * its cost and an upper bound on its cost over the optimal cost. The bound always
+ * holds, but how tight it is depends on the search: ARA* bounds it by the least
+ * f-cost still open, while HPA* only divides by a Manhattan distance.
+ */
+public class SearchResult {
+
+    public final ArrayList<String> SOLUTION;
+    public final int COST;
+    public final double SUBOPTIMALITY;
+
+    /**
+     * Constructs a new SearchResult.
+     *
+     * @param solution The actions that lead from the initial to the goal state, of
+     * the format: ["R", "R", "L", ...]
+     * @param cost The cost of the solution, as reported by MazeProblem.testSolution
+     * @param suboptimality A factor, no less than 1, such that the optimal cost is
+     * at least cost / suboptimality; not necessarily the least such factor
+     */
+    SearchResult (ArrayList<String> solution, int cost, double suboptimality) {
+        this.SOLUTION = solution;
+        this.COST = cost;
+        this.SUBOPTIMALITY = suboptimality;
+    }
+
+    public String toString () {
+        return "(cost " + COST + ", within " + SUBOPTIMALITY + "x of optimal)";
+    }
+}
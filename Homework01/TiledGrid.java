@@ -0,0 +1,185 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MazeGrid read from a tiled maze file, written by MazeFile.saveTiled, that is
+ * never held in memory whole: the maze is split into square tiles of a fixed
+ * size, stored one after another, and each tile is read and decoded to a byte
+ * per cell only when a cell on it is first asked for. At most a fixed number of
+ * decoded tiles are kept, the one used least recently giving way to the next,
+ * so a search touches only the tiles around the cells it reaches.<br>
+ * Reads of the tile read last take no lock; the rest are serialized, so one
+ * grid may be shared by several threads. The file stays open until the grid is
+ * closed.
+ */
+class TiledGrid implements MazeGrid {
+
+    // A decoded tile; tiles never change, so one may be read long after it has
+    // left the cache
+    private static final class Tile {
+        final int id;
+        final byte[] cells;
+
+        Tile (int id, byte[] cells) {
+            this.id = id;
+            this.cells = cells;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long offset;
+    private final int cols, tileBits, tilesAcross, tileBytes;
+
+    // The cached tiles, in slots that form a list from the most recently used,
+    // head, to the least, tail; slotOf maps every tile to its slot, or -1
+    private final Tile[] slots;
+    private final int[] slotOf, previous, next;
+    private int head = -1, tail = -1, used;
+
+    // The tile read last, read without a lock
+    private volatile Tile recent = new Tile(-1, null);
+
+    private final LongAdder hits = new LongAdder();
+    private long misses;
+
+    /**
+     * Constructs a new TiledGrid over the given file.
+     *
+     * @param channel The open file, which this grid goes on reading from
+     * @param offset The byte at which the first tile starts
+     * @param rows The number of rows in the maze
+     * @param cols The number of columns in the maze
+     * @param tileBits The width and height of a tile, in cells, as a power of two
+     * @param capacity The most decoded tiles to keep at once, at least 1
+     */
+    TiledGrid (FileChannel channel, long offset, int rows, int cols, int tileBits, int capacity) {
+        this.channel = channel;
+        this.offset = offset;
+        this.cols = cols;
+        this.tileBits = tileBits;
+        this.tilesAcross = (cols + (1 << tileBits) - 1) >>> tileBits;
+        this.tileBytes = 1 << (2 * tileBits - 2);
+        int tilesDown = (rows + (1 << tileBits) - 1) >>> tileBits;
+        this.slotOf = new int[tilesAcross * tilesDown];
+        Arrays.fill(slotOf, -1);
+        this.slots = new Tile[Math.max(1, capacity)];
+        this.previous = new int[slots.length];
+        this.next = new int[slots.length];
+    }
+
+    public int get (int index) {
+        int row = index / cols, col = index % cols;
+        int id = (row >>> tileBits) * tilesAcross + (col >>> tileBits);
+        Tile tile = recent;
+        if (tile.id != id) {
+            tile = fetch(id);
+        } else {
+            hits.increment();
+        }
+        int mask = (1 << tileBits) - 1;
+        return tile.cells[(row & mask) << tileBits | (col & mask)];
+    }
+
+    public void set (int index, int code) {
+        throw new UnsupportedOperationException("Tiled mazes are read-only");
+    }
+
+    /**
+     * Closes the file; tiles not already read can no longer be.
+     *
+     * @throws IOException If the file cannot be closed
+     */
+    @Override
+    public void close () throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return The number of cells read from a cached tile, and of tiles read from
+     * the file, as {hits, misses}
+     */
+    long[] getCounts () {
+        synchronized (this) {
+            return new long[] {hits.sum(), misses};
+        }
+    }
+
+    /**
+     * Finds the given tile in the cache, reading it in if it is not there, and
+     * marks it the most recently used.
+     */
+    private synchronized Tile fetch (int id) {
+        int slot = slotOf[id];
+        if (slot >= 0) {
+            hits.increment();
+            unlink(slot);
+        } else {
+            misses++;
+            if (used < slots.length) {
+                slot = used++;
+            } else {
+                slot = tail;
+                unlink(slot);
+                slotOf[slots[slot].id] = -1;
+            }
+            slots[slot] = read(id);
+            slotOf[id] = slot;
+        }
+        previous[slot] = -1;
+        next[slot] = head;
+        if (head >= 0) {
+            previous[head] = slot;
+        }
+        head = slot;
+        if (tail < 0) {
+            tail = slot;
+        }
+        recent = slots[slot];
+        return slots[slot];
+    }
+
+    private void unlink (int slot) {
+        if (previous[slot] >= 0) {
+            next[previous[slot]] = next[slot];
+        } else {
+            head = next[slot];
+        }
+        if (next[slot] >= 0) {
+            previous[next[slot]] = previous[slot];
+        } else {
+            tail = previous[slot];
+        }
+    }
+
+    /**
+     * Reads the given tile from the file and decodes its 2-bit codes, 4 per byte
+     * from the low bits up, to a byte per cell.
+     */
+    private Tile read (int id) {
+        ByteBuffer buffer = ByteBuffer.allocate(tileBytes);
+        try {
+            long position = offset + (long) id * tileBytes;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Tiled maze file ends early");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] cells = new byte[tileBytes << 2];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (byte) ((buffer.get(i >>> 2) >>> ((i & 3) << 1)) & 3);
+        }
+        return new Tile(id, cells);
+    }
+}
@@ -0,0 +1,55 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The baseline for PathfinderBenchmark: the Classwork01 breadth-first search,
+ * over the same mazes with mud and keys made open floor, since that MazeProblem
+ * knows neither. Its Pathfinder and MazeProblem share their names with those of
+ * Homework01, so bench.bat compiles this against Classwork01, on its own.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+@State(Scope.Benchmark)
+public class BfsBaselineBenchmark {
+
+    @Param({"CORRIDORS", "ROOMS", "MANY_GOALS"})
+    public MazeGenerator.Kind kind;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"1"})
+    public long seed;
+
+    MazeProblem problem;
+
+    @Setup
+    public void setup () {
+        problem = new MazeProblem(MazeGenerator.plain(MazeGenerator.generate(kind, size, 0, seed)));
+    }
+
+    @Benchmark
+    public ArrayList<String> solve () {
+        return Pathfinder.solve(problem);
+    }
+}
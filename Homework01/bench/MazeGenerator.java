@@ -0,0 +1,152 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Deterministic maze generators for the benchmarks: the same kind, size, mud
+ * density, and seed always give the same maze. Every maze is square, walled
+ * around its edge, and has the initial state in its top-left corner, a key near
+ * its middle, and a goal in its bottom-right corner.
+ */
+class MazeGenerator {
+
+    /** The kinds of maze that generate can build */
+    enum Kind {
+        /** One-cell corridors carved by a recursive backtracker: a perfect maze */
+        CORRIDORS,
+        /** Open rooms 16 cells across, joined by doors in the walls between them */
+        ROOMS,
+        /** ROOMS, with as many goals as the maze has rows scattered over its open cells */
+        MANY_GOALS
+    }
+
+    private static final int ROOM = 16;
+
+    /**
+     * Generates a maze.
+     *
+     * @param kind The kind of maze to generate
+     * @param size The number of rows and of columns, at least 7
+     * @param mud The probability that an open cell is mud
+     * @param seed The seed of the random choices
+     * @return The maze, in the format of the MazeProblem constructor
+     */
+    static String[] generate (Kind kind, int size, double mud, long seed) {
+        Random random = new Random(seed);
+        char[][] cells = kind == Kind.CORRIDORS ? corridors(size, random) : rooms(size, random);
+        if (kind == Kind.MANY_GOALS) {
+            for (int goal = 0; goal < size; ) {
+                int row = 1 + random.nextInt(size - 2), col = 1 + random.nextInt(size - 2);
+                if (cells[row][col] == '.') {
+                    cells[row][col] = 'G';
+                    goal++;
+                }
+            }
+        }
+        for (int row = 1; row < size - 1; row++) {
+            for (int col = 1; col < size - 1; col++) {
+                if (cells[row][col] == '.' && random.nextDouble() < mud) {
+                    cells[row][col] = 'M';
+                }
+            }
+        }
+        // Cells of odd row and column are open in every kind of maze, and the last
+        // of them is size - 2 if size is odd and size - 3 if it is even
+        int middle = (size / 2 - 1) | 1, last = size - 3 + size % 2;
+        cells[1][1] = 'I';
+        cells[middle][middle] = 'K';
+        cells[last][last] = 'G';
+        String[] maze = new String[size];
+        for (int row = 0; row < size; row++) {
+            maze[row] = new String(cells[row]);
+        }
+        return maze;
+    }
+
+    /**
+     * Turns a maze into one the Classwork01 MazeProblem accepts, which knows no
+     * mud or keys, by making those cells open; a maze with several goals keeps
+     * only its last, in row-major order.
+     *
+     * @param maze A maze, in the format of the MazeProblem constructor
+     * @return The maze with mud and keys made open floor
+     */
+    static String[] plain (String[] maze) {
+        String[] result = new String[maze.length];
+        for (int row = 0; row < maze.length; row++) {
+            result[row] = maze[row].replace('M', '.').replace('K', '.');
+        }
+        return result;
+    }
+
+    /**
+     * Carves corridors between the cells of odd row and column with an iterative
+     * recursive backtracker, which visits every such cell once.
+     */
+    private static char[][] corridors (int size, Random random) {
+        char[][] cells = walls(size);
+        int across = (size - 1) / 2, total = across * across;
+        boolean[] visited = new boolean[total];
+        int[] stack = new int[total], options = new int[4];
+        int depth = 0;
+        stack[depth++] = 0;
+        visited[0] = true;
+        cells[1][1] = '.';
+        while (depth > 0) {
+            int node = stack[depth - 1], x = node % across, y = node / across, count = 0;
+            if (y > 0 && !visited[node - across]) options[count++] = node - across;
+            if (y < across - 1 && !visited[node + across]) options[count++] = node + across;
+            if (x > 0 && !visited[node - 1]) options[count++] = node - 1;
+            if (x < across - 1 && !visited[node + 1]) options[count++] = node + 1;
+            if (count == 0) {
+                depth--;
+                continue;
+            }
+            int next = options[random.nextInt(count)];
+            visited[next] = true;
+            cells[2 * (next / across) + 1][2 * (next % across) + 1] = '.';
+            cells[y + next / across + 1][x + next % across + 1] = '.';
+            stack[depth++] = next;
+        }
+        return cells;
+    }
+
+    /**
+     * Lays out a grid of open rooms, with a wall between neighbouring rooms that
+     * has a door at a random position.
+     */
+    private static char[][] rooms (int size, Random random) {
+        char[][] cells = walls(size);
+        for (int row = 1; row < size - 1; row++) {
+            for (int col = 1; col < size - 1; col++) {
+                if (row % ROOM != 0 && col % ROOM != 0) {
+                    cells[row][col] = '.';
+                }
+            }
+        }
+        for (int top = 0; top < size - 1; top += ROOM) {
+            for (int left = 0; left < size - 1; left += ROOM) {
+                int height = Math.min(ROOM, size - 1 - top), width = Math.min(ROOM, size - 1 - left);
+                if (left + ROOM < size - 1 && height > 1) {
+                    cells[top + 1 + random.nextInt(height - 1)][left + ROOM] = '.';
+                }
+                if (top + ROOM < size - 1 && width > 1) {
+                    cells[top + ROOM][left + 1 + random.nextInt(width - 1)] = '.';
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static char[][] walls (int size) {
+        char[][] cells = new char[size][size];
+        for (char[] row : cells) {
+            Arrays.fill(row, 'X');
+        }
+        return cells;
+    }
+}
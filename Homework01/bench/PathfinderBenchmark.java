@@ -0,0 +1,80 @@
+
+// Group: Tim Herrmann & Joe Maiocco
+
+//package pathfinder.informed;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the Pathfinder searches over seeded MazeGenerator mazes,
+ * measured both as throughput and as sampled latencies, whose percentiles JMH
+ * reports; run with -prof gc, as bench.bat does, for the allocation rate.<br>
+ * The MazeProblem is built once per trial, so only the search is measured.
+ * Pathfinder.solve runs the search of solveIndexed, and is measured alongside
+ * it for the cost of building its path as Strings.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class PathfinderBenchmark {
+
+    /**
+     * A maze of every kind and size, up to 10^8 cells.
+     */
+    @State(Scope.Benchmark)
+    public static class LargeMaze {
+        @Param({"CORRIDORS", "ROOMS", "MANY_GOALS"})
+        public MazeGenerator.Kind kind;
+
+        @Param({"100", "1000", "10000"})
+        public int size;
+
+        @Param({"0.0", "0.2"})
+        public double mud;
+
+        @Param({"1"})
+        public long seed;
+
+        MazeProblem problem;
+
+        @Setup
+        public void setup () {
+            problem = new MazeProblem(MazeGenerator.generate(kind, size, mud, seed));
+        }
+    }
+
+    @Benchmark
+    public ArrayList<String> solve (LargeMaze maze) {
+        return Pathfinder.solve(maze.problem);
+    }
+
+    @Benchmark
+    public ArrayList<String> solveIndexed (LargeMaze maze) {
+        return Pathfinder.solveIndexed(maze.problem);
+    }
+
+    @Benchmark
+    public ArrayList<String> solveIndexedBuckets (LargeMaze maze) {
+        return Pathfinder.solveIndexed(maze.problem, Pathfinder.Frontier.BUCKET_QUEUE);
+    }
+
+    @Benchmark
+    public CompactPath solveCompact (LargeMaze maze) {
+        return Pathfinder.solveCompact(maze.problem);
+    }
+}
@@ -0,0 +1,7 @@
+@rem Needs the JMH jars in jmh\: jmh-core, jmh-generator-annprocess, jopt-simple, commons-math3
+@rd /s /q build 2>nul
+@javac -cp jmh\*;..;..\junit-4.13-beta-1.jar -d build\homework ..\*.java MazeGenerator.java PathfinderBenchmark.java
+@javac -cp jmh\*;..\..\Classwork\Classwork01;..\..\Classwork\Classwork01\junit-4.13-beta-1.jar -d build\classwork ..\..\Classwork\Classwork01\*.java MazeGenerator.java BfsBaselineBenchmark.java
+@java -cp jmh\*;build\homework org.openjdk.jmh.Main PathfinderBenchmark -prof gc -rf json -rff homework.json %*
+@java -cp jmh\*;build\classwork org.openjdk.jmh.Main BfsBaselineBenchmark -prof gc -rf json -rff classwork.json %*
+cmd /k